@@ -0,0 +1,93 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.datatypes.xsd.XSDDatatype.XSDdateTime;
+import static org.fcrepo.kernel.api.RdfLexicon.REPOSITORY_NAMESPACE;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fcrepo.kernel.api.RdfStream;
+import org.fcrepo.kernel.api.rdf.DefaultRdfStream;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.vocabulary.DC;
+import com.hp.hpl.jena.vocabulary.DCTerms;
+import com.hp.hpl.jena.vocabulary.RDF;
+
+/**
+ * Synthetic resource descriptions for the transform benchmarks. Each description has the
+ * server-managed triples of a Fedora container, padded out to the requested size with
+ * containment and descriptive triples about the same subject.
+ *
+ * @author agent
+ */
+public final class BenchmarkFixtures {
+
+    public static final Node TOPIC = createURI("http://localhost:8080/rest/benchmark");
+
+    private static final Node CONTAINS = createURI("http://www.w3.org/ns/ldp#contains");
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Build the triples of a resource description
+     * @param size the number of triples, at least the number of server-managed triples
+     * @return the triples
+     */
+    public static List<Triple> triples(final int size) {
+        final List<Triple> triples = new ArrayList<>(size);
+        triples.add(create(TOPIC, RDF.type.asNode(), createURI(REPOSITORY_NAMESPACE + "Resource")));
+        triples.add(create(TOPIC, RDF.type.asNode(), createURI(REPOSITORY_NAMESPACE + "Container")));
+        triples.add(create(TOPIC, createURI(REPOSITORY_NAMESPACE + "hasParent"),
+                createURI("http://localhost:8080/rest/")));
+        triples.add(create(TOPIC, createURI(REPOSITORY_NAMESPACE + "created"),
+                createLiteral("2016-08-01T12:00:00.000Z", XSDdateTime)));
+        triples.add(create(TOPIC, createURI(REPOSITORY_NAMESPACE + "lastModified"),
+                createLiteral("2016-08-02T12:00:00.000Z", XSDdateTime)));
+        triples.add(create(TOPIC, DC.title.asNode(), createLiteral("A benchmark resource")));
+        for (int i = 0; triples.size() < size; i++) {
+            switch (i % 3) {
+                case 0:
+                    triples.add(create(TOPIC, CONTAINS, createURI(TOPIC.getURI() + "/child" + i)));
+                    break;
+                case 1:
+                    triples.add(create(TOPIC, DCTerms.subject.asNode(), createLiteral("subject " + i)));
+                    break;
+                default:
+                    triples.add(create(TOPIC, DC.identifier.asNode(), createLiteral("id-" + i)));
+            }
+        }
+        return triples;
+    }
+
+    /**
+     * Stream previously built triples as a resource description
+     * @param triples the triples
+     * @return a fresh stream of the triples
+     */
+    public static RdfStream stream(final List<Triple> triples) {
+        return new DefaultRdfStream(TOPIC, triples.stream());
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.fcrepo.transform.transformations.LDPathTransform.APPLICATION_RDF_LDPATH;
+
+import java.io.ByteArrayInputStream;
+
+import javax.ws.rs.core.MediaType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link TransformationFactory#getTransform} for each supported media type.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransformationFactoryBenchmark {
+
+    @Param({APPLICATION_RDF_LDPATH, "application/sparql-query"})
+    public String contentType;
+
+    private final TransformationFactory factory = new TransformationFactory();
+
+    private final byte[] body = "title = dc:title :: xsd:string ;".getBytes(UTF_8);
+
+    private MediaType mediaType;
+
+    /**
+     * Parse the media type once, as the JAX-RS runtime does
+     */
+    @Setup
+    public void setUp() {
+        mediaType = MediaType.valueOf(contentType);
+    }
+
+    /**
+     * @return the transform
+     */
+    @Benchmark
+    public Transformation<Object> getTransform() {
+        return factory.getTransform(mediaType, new ByteArrayInputStream(body));
+    }
+}
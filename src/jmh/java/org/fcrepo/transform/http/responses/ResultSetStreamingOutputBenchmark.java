@@ -0,0 +1,98 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.http.responses;
+
+import static com.google.common.io.ByteStreams.nullOutputStream;
+import static com.hp.hpl.jena.query.QueryExecutionFactory.create;
+import static com.hp.hpl.jena.query.ResultSetFactory.copyResults;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createModelForGraph;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.fcrepo.transform.BenchmarkFixtures.triples;
+
+import javax.ws.rs.core.MediaType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.ResultSetRewindable;
+import com.hp.hpl.jena.sparql.graph.GraphFactory;
+
+/**
+ * Benchmarks {@link ResultSetStreamingOutput#writeTo} for each results format, over a result
+ * set that is computed once and rewound before each write.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResultSetStreamingOutputBenchmark {
+
+    @Param({"application/sparql-results+json", "application/sparql-results+xml", "text/csv",
+            "text/tab-separated-values", "text/turtle", "application/n-triples", "application/rdf+xml"})
+    public String format;
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private final ResultSetStreamingOutput writer = new ResultSetStreamingOutput();
+
+    private MediaType mediaType;
+
+    private ResultSetRewindable results;
+
+    /**
+     * Compute the solutions to be written
+     */
+    @Setup
+    public void setUp() {
+        mediaType = MediaType.valueOf(format);
+        final Graph graph = GraphFactory.createDefaultGraph();
+        for (final Triple triple : triples(size)) {
+            graph.add(triple);
+        }
+        try (final QueryExecution execution = create("SELECT ?p ?o WHERE { ?s ?p ?o }",
+                createModelForGraph(graph))) {
+            results = copyResults(execution.execSelect());
+        }
+    }
+
+    /**
+     * Write every solution
+     */
+    @Benchmark
+    public void writeTo() {
+        results.reset();
+        writer.writeTo(results, null, null, null, mediaType, null, nullOutputStream());
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.fcrepo.transform.BenchmarkFixtures.stream;
+import static org.fcrepo.transform.BenchmarkFixtures.triples;
+import static org.fcrepo.transform.transformations.LDPathTransform.parseProgram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.marmotta.ldpath.exception.LDPathParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * Benchmarks {@link LDPathTransform#apply} with the bundled programs, as a GET of a transform
+ * key does once the program has been compiled and indexed.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LDPathTransformBenchmark {
+
+    @Param({"default", "deluxe"})
+    public String program;
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private LDPathTransform transform;
+
+    private List<Triple> triples;
+
+    /**
+     * Compile the bundled program and build the resource description
+     * @throws IOException if the program could not be read
+     * @throws LDPathParseException if the program could not be compiled
+     */
+    @Setup
+    public void setUp() throws IOException, LDPathParseException {
+        try (final InputStream source = getClass().getResourceAsStream("/ldpath/" + program + "/ldpath_program.txt")) {
+            transform = new LDPathTransform(parseProgram(source));
+        }
+        triples = triples(size);
+    }
+
+    /**
+     * @return the fields of the resource
+     */
+    @Benchmark
+    public List<Map<String, Collection<Object>>> apply() {
+        return transform.apply(stream(triples));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.fcrepo.transform.BenchmarkFixtures.stream;
+import static org.fcrepo.transform.BenchmarkFixtures.triples;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.ResultSet;
+
+/**
+ * Benchmarks {@link SparqlQueryTransform#apply} and the execution of its query over the
+ * resulting model.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SparqlQueryTransformBenchmark {
+
+    private static final String QUERY = "SELECT ?p ?o WHERE { ?s ?p ?o }";
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private SparqlQueryTransform transform;
+
+    private List<Triple> triples;
+
+    /**
+     * Parse the query and build the resource description
+     */
+    @Setup
+    public void setUp() {
+        transform = SparqlQueryTransform.forQuery(SparqlQueryTransform.parseQuery(QUERY));
+        triples = triples(size);
+    }
+
+    /**
+     * @param blackhole consumes the solutions
+     */
+    @Benchmark
+    public void apply(final Blackhole blackhole) {
+        try (final QueryExecution execution = transform.apply(stream(triples))) {
+            final ResultSet results = execution.execSelect();
+            while (results.hasNext()) {
+                blackhole.consume(results.next());
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.fcrepo.kernel.api.models.FedoraResource;
+
+/**
+ * Walks a resource and its descendants depth-first, reading the children of a resource only
+ * when the walk reaches them. Only one iterator of children is held for each level of the
+ * walk, so the memory used is bounded by the depth of the tree rather than its size.
+ *
+ * @author agent
+ */
+public class DepthFirstResourceIterator implements Iterator<FedoraResource> {
+
+    private final Deque<Iterator<FedoraResource>> levels = new ArrayDeque<>();
+
+    private final int maxDepth;
+
+    private FedoraResource next;
+
+    /**
+     * @param root the resource to start from
+     * @param maxDepth how many levels of descendants to walk, or a negative number for all
+     */
+    public DepthFirstResourceIterator(final FedoraResource root, final int maxDepth) {
+        this.next = root;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !levels.isEmpty()) {
+            final Iterator<FedoraResource> children = levels.peek();
+            if (children.hasNext()) {
+                next = children.next();
+            } else {
+                levels.pop();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public FedoraResource next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final FedoraResource current = next;
+        next = null;
+        // the depth of the current resource is the number of levels above it
+        if (maxDepth < 0 || levels.size() < maxDepth) {
+            levels.push(current.getChildren().iterator());
+        }
+        return current;
+    }
+}
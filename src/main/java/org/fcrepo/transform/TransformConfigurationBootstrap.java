@@ -0,0 +1,168 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static com.google.common.collect.ImmutableMap.of;
+import static org.fcrepo.transform.transformations.LDPathTransform.CONFIGURATION_FOLDER;
+import static org.fcrepo.transform.transformations.LDPathTransform.DEFAULT_TRANSFORM_RESOURCE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.http.commons.session.SessionFactory;
+
+import org.fcrepo.kernel.api.exception.InvalidChecksumException;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.kernel.api.services.BinaryService;
+import org.fcrepo.kernel.api.services.ContainerService;
+import org.fcrepo.kernel.api.services.NodeService;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers the transform configuration tree, and the bundled LDPath programs, in the
+ * repository. This happens once per repository: the configuration root is stamped with
+ * the bootstrap version, and later startups find the stamp and write nothing. A bundled
+ * program that has since been deleted is still uploaded again at the next startup, as it
+ * always has been; later startups only check that each one exists.
+ *
+ * @author agent
+ */
+@Component
+public class TransformConfigurationBootstrap {
+
+    public static final String TRANSFORM_CONFIGURATION_ROOT = "/fedora:system/fedora:transform";
+
+    /**
+     * Increment this whenever the bootstrapped configuration tree or bundled programs change
+     */
+    public static final long BOOTSTRAP_VERSION = 2;
+
+    static final String SPARQL_CONFIGURATION_FOLDER = TRANSFORM_CONFIGURATION_ROOT + "/fedora:sparql";
+
+    static final String BOOTSTRAP_VERSION_PROPERTY = "fedora:transformBootstrapVersion";
+
+    private static final Map<String, String> BUNDLED_TRANSFORMATIONS = of(
+            "default", "/ldpath/default/ldpath_program.txt",
+            "deluxe", "/ldpath/deluxe/ldpath_program.txt");
+
+    private static final Logger LOGGER = getLogger(TransformConfigurationBootstrap.class);
+
+    @Inject
+    private SessionFactory sessions;
+
+    @Inject
+    private NodeService nodeService;
+
+    @Inject
+    private ContainerService containerService;
+
+    @Inject
+    private BinaryService binaryService;
+
+    private volatile boolean bootstrapped = false;
+
+    /**
+     * Bootstrap the configuration tree at startup. A failure here is logged rather than
+     * thrown, so that it cannot take down the repository; the bootstrap is retried by the
+     * next transform request.
+     */
+    @PostConstruct
+    public void bootstrapAtStartup() {
+        try {
+            ensureBootstrapped();
+        } catch (final RepositoryException | RepositoryRuntimeException e) {
+            LOGGER.warn("Could not register the transform configuration tree at startup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Register the LDPath configuration tree in JCR, unless that has already been done
+     *
+     * @throws RepositoryException if repository exception occurred
+     */
+    public void ensureBootstrapped() throws RepositoryException {
+        if (bootstrapped) {
+            return;
+        }
+        synchronized (this) {
+            if (!bootstrapped) {
+                bootstrap();
+                bootstrapped = true;
+            }
+        }
+    }
+
+    private void bootstrap() throws RepositoryException {
+        final Session internalSession = sessions.getInternalSession();
+        try {
+            // Create this resource or it becomes a PairTree which is not referenceable.
+            containerService.findOrCreate(internalSession, TRANSFORM_CONFIGURATION_ROOT);
+
+            final Node configurationRoot = internalSession.getNode(TRANSFORM_CONFIGURATION_ROOT);
+            if (configurationRoot.hasProperty(BOOTSTRAP_VERSION_PROPERTY) &&
+                    configurationRoot.getProperty(BOOTSTRAP_VERSION_PROPERTY).getLong() >= BOOTSTRAP_VERSION &&
+                    BUNDLED_TRANSFORMATIONS.keySet().stream().allMatch(key ->
+                            nodeService.exists(internalSession, bundledProgramPath(key)))) {
+                LOGGER.debug("Transform configuration is already at version {}", BOOTSTRAP_VERSION);
+                return;
+            }
+
+            // stored SPARQL transforms are uploaded by users; only their folder is bootstrapped
+            containerService.findOrCreate(internalSession, SPARQL_CONFIGURATION_FOLDER);
+
+            BUNDLED_TRANSFORMATIONS.forEach((key, value) -> {
+
+                final FedoraResource resource =
+                        containerService.findOrCreate(internalSession, CONFIGURATION_FOLDER + key);
+                LOGGER.debug("Transformation default resource: {}", resource.getPath());
+
+                final String uploadPath = bundledProgramPath(key);
+                if (!nodeService.exists(internalSession, uploadPath)) {
+                    LOGGER.debug("Uploading the stream to {}", uploadPath);
+                    final FedoraBinary base = binaryService.findOrCreate(internalSession, uploadPath);
+                    try (final InputStream program = getClass().getResourceAsStream(value)) {
+                        base.setContent(program, null, null, null, null);
+                    } catch (final InvalidChecksumException | IOException e) {
+                        throw new RepositoryRuntimeException(e);
+                    }
+                }
+            });
+
+            configurationRoot.setProperty(BOOTSTRAP_VERSION_PROPERTY, BOOTSTRAP_VERSION);
+            internalSession.save();
+            LOGGER.info("Registered transform configuration version {}", BOOTSTRAP_VERSION);
+        } finally {
+            internalSession.logout();
+        }
+    }
+
+    private static String bundledProgramPath(final String key) {
+        return CONFIGURATION_FOLDER + key + "/" + DEFAULT_TRANSFORM_RESOURCE;
+    }
+}
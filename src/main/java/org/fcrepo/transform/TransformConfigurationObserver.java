@@ -0,0 +1,151 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static javax.jcr.observation.Event.NODE_ADDED;
+import static javax.jcr.observation.Event.NODE_MOVED;
+import static javax.jcr.observation.Event.NODE_REMOVED;
+import static javax.jcr.observation.Event.PROPERTY_ADDED;
+import static javax.jcr.observation.Event.PROPERTY_CHANGED;
+import static javax.jcr.observation.Event.PROPERTY_REMOVED;
+import static org.fcrepo.transform.TransformConfigurationBootstrap.TRANSFORM_CONFIGURATION_ROOT;
+import static org.fcrepo.transform.transformations.LDPathTransform.CONFIGURATION_FOLDER;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+import javax.jcr.observation.ObservationManager;
+
+import org.fcrepo.transform.transformations.LDPathProgramIndex;
+import org.fcrepo.transform.transformations.SparqlQueryRegistry;
+import org.fcrepo.transform.transformations.SparqlQueryTransform;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listens for changes to the transform configuration tree, and drops whatever has been
+ * indexed from the parts of the tree that changed. It also listens for changes to the
+ * namespace registry, which ModeShape keeps under {@value #NAMESPACES_ROOT}, and drops
+ * the indexed namespaces when one is registered or remapped.
+ *
+ * @author agent
+ */
+@Component
+public class TransformConfigurationObserver implements EventListener {
+
+    private static final int EVENT_TYPES = NODE_ADDED | NODE_REMOVED | NODE_MOVED
+            | PROPERTY_ADDED | PROPERTY_CHANGED | PROPERTY_REMOVED;
+
+    static final String NAMESPACES_ROOT = "/jcr:system/mode:namespaces";
+
+    private static final Logger LOGGER = getLogger(TransformConfigurationObserver.class);
+
+    @Inject
+    private Repository repository;
+
+    @Inject
+    private LDPathProgramIndex programIndex;
+
+    @Inject
+    private SparqlQueryRegistry queryRegistry;
+
+    private final EventListener namespaceListener = events -> programIndex.invalidateNamespaces();
+
+    private Session session;
+
+    /**
+     * Register this observer with the repository
+     *
+     * @throws RepositoryException if repository exception occurred
+     */
+    @PostConstruct
+    public void buildListener() throws RepositoryException {
+        session = repository.login();
+        final ObservationManager observationManager = session.getWorkspace().getObservationManager();
+        observationManager.addEventListener(this, EVENT_TYPES, TRANSFORM_CONFIGURATION_ROOT, true,
+                null, null, false);
+        observationManager.addEventListener(namespaceListener, EVENT_TYPES, NAMESPACES_ROOT, true,
+                null, null, false);
+        session.save();
+    }
+
+    /**
+     * Remove this observer from the repository
+     *
+     * @throws RepositoryException if repository exception occurred
+     */
+    @PreDestroy
+    public void stopListening() throws RepositoryException {
+        try {
+            final ObservationManager observationManager = session.getWorkspace().getObservationManager();
+            observationManager.removeEventListener(this);
+            observationManager.removeEventListener(namespaceListener);
+        } finally {
+            session.logout();
+        }
+    }
+
+    @Override
+    public void onEvent(final EventIterator events) {
+        while (events.hasNext()) {
+            final Event event = events.nextEvent();
+            try {
+                invalidate(event.getPath());
+            } catch (final RepositoryException e) {
+                LOGGER.warn("Could not read the path of a transform configuration event: {}", e.getMessage());
+                programIndex.invalidateAll();
+                queryRegistry.invalidateAll();
+            }
+        }
+    }
+
+    private void invalidate(final String path) {
+        final String program = childOf(CONFIGURATION_FOLDER, path);
+        if (program != null) {
+            programIndex.invalidate(program);
+        } else if (CONFIGURATION_FOLDER.startsWith(path + "/")) {
+            programIndex.invalidateAll();
+        }
+
+        final String query = childOf(SparqlQueryTransform.CONFIGURATION_FOLDER, path);
+        if (query != null) {
+            queryRegistry.invalidate(query);
+        } else if (SparqlQueryTransform.CONFIGURATION_FOLDER.startsWith(path + "/")) {
+            queryRegistry.invalidateAll();
+        }
+    }
+
+    /**
+     * @return the name of the child of the folder that the path lies in, or null if it lies outside the folder
+     */
+    private static String childOf(final String folder, final String path) {
+        if (!path.startsWith(folder)) {
+            return null;
+        }
+        final String relativePath = path.substring(folder.length());
+        final int end = relativePath.indexOf('/');
+        return end < 0 ? relativePath : relativePath.substring(0, end);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import javax.ws.rs.core.MediaType;
+
+import org.fcrepo.metrics.RegistryService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * The metrics of the stages of the transform pipeline, kept in the Fedora metrics registry.
+ * Metrics are named for the class and stage they measure, followed by any tags, such as the
+ * media type a request was for; metrics without tags aggregate every request. Every tag names
+ * a metric of its own for as long as the registry lives, so tags are only ever taken from small,
+ * fixed sets of values, and never from what a client put in a request path.
+ *
+ * @author agent
+ */
+public final class TransformMetrics {
+
+    private static final MetricRegistry REGISTRY = RegistryService.getInstance().getMetrics();
+
+    private TransformMetrics() {
+    }
+
+    /**
+     * Get the timer of a stage
+     * @param owner the class of the stage
+     * @param stage the stage
+     * @param tags the tags of the timer
+     * @return the timer
+     */
+    public static Timer timer(final Class<?> owner, final String stage, final String... tags) {
+        return REGISTRY.timer(name(name(owner, stage), tags));
+    }
+
+    /**
+     * Get a histogram of the sizes seen by a stage
+     * @param owner the class of the stage
+     * @param stage the stage
+     * @param tags the tags of the histogram
+     * @return the histogram
+     */
+    public static Histogram histogram(final Class<?> owner, final String stage, final String... tags) {
+        return REGISTRY.histogram(name(name(owner, stage), tags));
+    }
+
+    /**
+     * Get a counter of the events of a stage
+     * @param owner the class of the stage
+     * @param stage the stage
+     * @param tags the tags of the counter
+     * @return the counter
+     */
+    public static Counter counter(final Class<?> owner, final String stage, final String... tags) {
+        return REGISTRY.counter(name(name(owner, stage), tags));
+    }
+
+    /**
+     * Register a gauge of a stage, replacing any gauge of the same name
+     * @param owner the class of the stage
+     * @param stage the stage
+     * @param gauge the gauge
+     * @param <T> the type of the value of the gauge
+     * @return the gauge
+     */
+    public static <T> Gauge<T> gauge(final Class<?> owner, final String stage, final Gauge<T> gauge) {
+        final String name = name(owner, stage);
+        REGISTRY.remove(name);
+        return REGISTRY.register(name, gauge);
+    }
+
+    /**
+     * Tag a metric with a media type, leaving out its parameters
+     * @param mediaType the media type
+     * @return the tag
+     */
+    public static String tag(final MediaType mediaType) {
+        return mediaType == null ? null : mediaType.getType() + "/" + mediaType.getSubtype();
+    }
+}
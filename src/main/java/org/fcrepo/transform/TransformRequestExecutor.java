@@ -0,0 +1,143 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static javax.ws.rs.core.HttpHeaders.RETRY_AFTER;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.ws.rs.core.Response;
+
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Counter;
+
+/**
+ * A bound on the number of transform requests evaluated at once, so that slow transforms
+ * cannot take every container thread from the ordinary requests the same threads serve.
+ * Requests are evaluated on their own threads, as they read through the session of the
+ * request, and need no asynchronous support from the container. At most as many as the
+ * {@value #THREADS_PROPERTY} system property, defaulting to the number of available
+ * processors, are evaluated at a time, and as many as the {@value #QUEUE_PROPERTY} system
+ * property may wait their turn. A request arriving when the queue is full is answered at once
+ * with 503 Service Unavailable.
+ *
+ * @author agent
+ */
+@Component
+public class TransformRequestExecutor {
+
+    public static final String THREADS_PROPERTY = "fcrepo.transform.requestThreads";
+
+    public static final String QUEUE_PROPERTY = "fcrepo.transform.requestQueue";
+
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+
+    /**
+     * The number of seconds a rejected client is asked to wait before retrying
+     */
+    public static final int RETRY_AFTER_SECONDS = 5;
+
+    private static final Counter REJECTED = TransformMetrics.counter(TransformRequestExecutor.class, "rejected");
+
+    private static final Logger LOGGER = getLogger(TransformRequestExecutor.class);
+
+    private final int threads;
+
+    private final Semaphore admitted;
+
+    private final Semaphore running;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Bound requests by the {@value #THREADS_PROPERTY} and {@value #QUEUE_PROPERTY} system properties
+     */
+    public TransformRequestExecutor() {
+        this(Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()),
+                Integer.getInteger(QUEUE_PROPERTY, DEFAULT_QUEUE_SIZE));
+    }
+
+    /**
+     * Bound requests to the given number at a time
+     * @param threads the number of requests evaluated at a time
+     * @param queueSize the number of requests that may wait their turn
+     */
+    public TransformRequestExecutor(final int threads, final int queueSize) {
+        this.threads = Math.max(1, threads);
+        this.admitted = new Semaphore(this.threads + Math.max(1, queueSize));
+        this.running = new Semaphore(this.threads, true);
+        TransformMetrics.gauge(TransformRequestExecutor.class, "queued", queued::get);
+        TransformMetrics.gauge(TransformRequestExecutor.class, "active",
+                () -> this.threads - running.availablePermits());
+        LOGGER.info("Evaluating at most {} transform requests at a time", this.threads);
+    }
+
+    /**
+     * Build the response to a request once its turn comes, or refuse it if too many requests
+     * are already waiting
+     * @param respond builds the response
+     * @return the response
+     */
+    public Response respond(final Supplier<Response> respond) {
+        if (!admitted.tryAcquire()) {
+            REJECTED.inc();
+            LOGGER.warn("Rejecting a transform request, with {} already waiting", queued.get());
+            return tooBusy();
+        }
+        try {
+            queued.incrementAndGet();
+            try {
+                running.acquire();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return tooBusy();
+            } finally {
+                queued.decrementAndGet();
+            }
+            try {
+                return respond.get();
+            } finally {
+                running.release();
+            }
+        } finally {
+            admitted.release();
+        }
+    }
+
+    /**
+     * @return the number of requests waiting their turn
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    private static Response tooBusy() {
+        return Response.status(SERVICE_UNAVAILABLE)
+                .header(RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .entity("Too many transforms are in progress")
+                .type(TEXT_PLAIN_TYPE)
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A bounded pool of threads on which the results of transforms over many resources are
+ * evaluated in parallel. Its size is set by the {@value #PARALLELISM_PROPERTY} system
+ * property, and defaults to the number of available processors. When every thread is busy
+ * and the queue is full, work runs on the thread that submitted it, which slows down a
+ * request rather than rejecting it.
+ *
+ * @author agent
+ */
+@Component
+public class TransformWorkerPool {
+
+    public static final String PARALLELISM_PROPERTY = "fcrepo.transform.parallelism";
+
+    private static final Logger LOGGER = getLogger(TransformWorkerPool.class);
+
+    private final int parallelism;
+
+    private final ExecutorService executor;
+
+    /**
+     * Create a pool sized by the {@value #PARALLELISM_PROPERTY} system property
+     */
+    public TransformWorkerPool() {
+        this(Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Create a pool of the given size
+     * @param parallelism the number of threads
+     */
+    public TransformWorkerPool(final int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        this.executor = new ThreadPoolExecutor(this.parallelism, this.parallelism, 0, SECONDS,
+                new ArrayBlockingQueue<>(this.parallelism * 4),
+                new ThreadFactoryBuilder().setNameFormat("fcrepo-transform-%d").setDaemon(true).build(),
+                new CallerRunsPolicy());
+        LOGGER.info("Evaluating parallel transforms on {} threads", this.parallelism);
+    }
+
+    /**
+     * @return the number of threads in the pool
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the executor of the pool
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Stop the threads of the pool
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
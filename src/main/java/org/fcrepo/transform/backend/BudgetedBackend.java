@@ -0,0 +1,123 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.backend;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.Collection;
+
+import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+import org.fcrepo.transform.LDPathBudgetExceededException;
+import org.fcrepo.transform.TransformMetrics;
+
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * An LDPath backend that counts the nodes an evaluation visits through it, and fails the
+ * evaluation once it has visited too many or taken too long. Only the time between
+ * {@link #resume()} and {@link #pause()} counts, so that time a prepared evaluation spends
+ * waiting for a thread does not; without them, the clock runs from the first visit. A backend
+ * meters a single evaluation, on a single thread.
+ *
+ * @author agent
+ */
+public class BudgetedBackend extends ForwardingBackend {
+
+    private final long timeoutNanos;
+
+    private final long maxVisits;
+
+    private static final long PAUSED = -1;
+
+    private long visits;
+
+    private long elapsed;
+
+    private long resumed = PAUSED;
+
+    /**
+     * @param backend the backend to meter
+     * @param timeout the longest the evaluation may take, in ms, or zero for no limit
+     * @param maxVisits the most nodes the evaluation may visit, or zero for no limit
+     */
+    public BudgetedBackend(final RDFBackend<RDFNode> backend, final long timeout, final long maxVisits) {
+        super(backend);
+        this.timeoutNanos = MILLISECONDS.toNanos(timeout);
+        this.maxVisits = maxVisits;
+    }
+
+    @Override
+    public Collection<RDFNode> listObjects(final RDFNode subject, final RDFNode property) {
+        return visit(backend.listObjects(subject, property));
+    }
+
+    @Override
+    public Collection<RDFNode> listSubjects(final RDFNode property, final RDFNode object) {
+        return visit(backend.listSubjects(property, object));
+    }
+
+    /**
+     * Start counting time against the budget, as the evaluation starts
+     */
+    public void resume() {
+        if (resumed == PAUSED) {
+            resumed = nanoTime();
+        }
+    }
+
+    /**
+     * Stop counting time against the budget, as the evaluation ends
+     */
+    public void pause() {
+        if (resumed != PAUSED) {
+            elapsed += nanoTime() - resumed;
+            resumed = PAUSED;
+        }
+    }
+
+    /**
+     * Count a step of the evaluation and the nodes it reached
+     */
+    private Collection<RDFNode> visit(final Collection<RDFNode> nodes) {
+        final long now = nanoTime();
+        if (resumed == PAUSED) {
+            resumed = now;
+        }
+        visits += 1 + nodes.size();
+        if (maxVisits > 0 && visits > maxVisits) {
+            TransformMetrics.counter(BudgetedBackend.class, "exceeded", "visits").inc();
+            throw new LDPathBudgetExceededException(String.format(
+                    "LDPath evaluation visited more than the limit of %d nodes", maxVisits));
+        }
+        if (timeoutNanos > 0 && elapsed + now - resumed > timeoutNanos) {
+            TransformMetrics.counter(BudgetedBackend.class, "exceeded", "time").inc();
+            throw new LDPathBudgetExceededException(String.format(
+                    "LDPath evaluation took more than the limit of %d ms", NANOSECONDS.toMillis(timeoutNanos)));
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the number of nodes visited so far
+     */
+    public long getVisits() {
+        return visits;
+    }
+}
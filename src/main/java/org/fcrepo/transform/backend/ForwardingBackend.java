@@ -0,0 +1,163 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.backend;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * An LDPath backend that passes every call on to another backend, for backends that only
+ * change how triples are looked up to override.
+ *
+ * @author agent
+ */
+public abstract class ForwardingBackend implements RDFBackend<RDFNode> {
+
+    protected final RDFBackend<RDFNode> backend;
+
+    /**
+     * @param backend the backend to pass calls on to
+     */
+    protected ForwardingBackend(final RDFBackend<RDFNode> backend) {
+        this.backend = backend;
+    }
+
+    @Override
+    public Collection<RDFNode> listObjects(final RDFNode subject, final RDFNode property) {
+        return backend.listObjects(subject, property);
+    }
+
+    @Override
+    public Collection<RDFNode> listSubjects(final RDFNode property, final RDFNode object) {
+        return backend.listSubjects(property, object);
+    }
+
+    @Override
+    public boolean supportsThreading() {
+        return backend.supportsThreading();
+    }
+
+    @Override
+    public ThreadPoolExecutor getThreadPool() {
+        return backend.getThreadPool();
+    }
+
+    @Override
+    public boolean isLiteral(final RDFNode node) {
+        return backend.isLiteral(node);
+    }
+
+    @Override
+    public boolean isURI(final RDFNode node) {
+        return backend.isURI(node);
+    }
+
+    @Override
+    public boolean isBlank(final RDFNode node) {
+        return backend.isBlank(node);
+    }
+
+    @Override
+    public Locale getLiteralLanguage(final RDFNode node) {
+        return backend.getLiteralLanguage(node);
+    }
+
+    @Override
+    public URI getLiteralType(final RDFNode node) {
+        return backend.getLiteralType(node);
+    }
+
+    @Override
+    public RDFNode createLiteral(final String content) {
+        return backend.createLiteral(content);
+    }
+
+    @Override
+    public RDFNode createLiteral(final String content, final Locale language, final URI type) {
+        return backend.createLiteral(content, language, type);
+    }
+
+    @Override
+    public RDFNode createURI(final String uri) {
+        return backend.createURI(uri);
+    }
+
+    @Override
+    public String stringValue(final RDFNode node) {
+        return backend.stringValue(node);
+    }
+
+    @Override
+    public Double doubleValue(final RDFNode node) {
+        return backend.doubleValue(node);
+    }
+
+    @Override
+    public Long longValue(final RDFNode node) {
+        return backend.longValue(node);
+    }
+
+    @Override
+    public Boolean booleanValue(final RDFNode node) {
+        return backend.booleanValue(node);
+    }
+
+    @Override
+    public Date dateTimeValue(final RDFNode node) {
+        return backend.dateTimeValue(node);
+    }
+
+    @Override
+    public Date dateValue(final RDFNode node) {
+        return backend.dateValue(node);
+    }
+
+    @Override
+    public Date timeValue(final RDFNode node) {
+        return backend.timeValue(node);
+    }
+
+    @Override
+    public Float floatValue(final RDFNode node) {
+        return backend.floatValue(node);
+    }
+
+    @Override
+    public Integer intValue(final RDFNode node) {
+        return backend.intValue(node);
+    }
+
+    @Override
+    public BigInteger integerValue(final RDFNode node) {
+        return backend.integerValue(node);
+    }
+
+    @Override
+    public BigDecimal decimalValue(final RDFNode node) {
+        return backend.decimalValue(node);
+    }
+}
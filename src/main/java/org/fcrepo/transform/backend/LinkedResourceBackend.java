@@ -0,0 +1,198 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.backend;
+
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.marmotta.ldpath.backend.jena.GenericJenaBackend;
+import org.fcrepo.transform.LDPathBudgetExceededException;
+import org.fcrepo.transform.TransformMetrics;
+
+import com.google.common.collect.ImmutableSet;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * An LDPath backend over the description of a resource that also follows links out of it into
+ * the repository, such as fedora:hasParent or pcdm:hasMember, so that a program can read the
+ * properties of related resources. A linked resource is loaded the first time a path steps out
+ * of it, as long as it lies within the given number of links of the resource. Hash URIs and blank
+ * nodes reached through a linked resource are read from the description they were found in, and
+ * lie as many links away as it does. Reverse paths see the resource and the linked resources that
+ * have been loaded so far. However deep the links go, an evaluation may follow links to no more
+ * than {@value #MAX_LINKED_RESOURCES_PROPERTY} resources, so that a resource with many members
+ * cannot fan it out over the repository.
+ *
+ * @author agent
+ */
+public class LinkedResourceBackend extends GenericJenaBackend {
+
+    public static final String MAX_LINK_DEPTH_PROPERTY = "fcrepo.transform.ldpath.maxLinkDepth";
+
+    /**
+     * The default number of links a request may ask to follow
+     */
+    public static final int DEFAULT_MAX_LINK_DEPTH = 2;
+
+    public static final String MAX_LINKED_RESOURCES_PROPERTY = "fcrepo.transform.ldpath.maxLinkedResources";
+
+    /**
+     * The default number of linked resources an evaluation may follow
+     */
+    public static final int DEFAULT_MAX_LINKED_RESOURCES = 100;
+
+    private final RdfStreamBackend resource;
+
+    private final LinkedResourceCache linkedResources;
+
+    private final int maxDepth;
+
+    private final int maxResources;
+
+    private final Map<Node, Integer> depths = new HashMap<>();
+
+    private final Map<Node, RdfStreamBackend> followed = new LinkedHashMap<>();
+
+    private final Map<Node, RdfStreamBackend> owners = new HashMap<>();
+
+    /**
+     * @param resource the description of the resource
+     * @param context the resource
+     * @param linkedResources the descriptions of linked resources
+     * @param maxDepth the number of links to follow
+     */
+    public LinkedResourceBackend(final RdfStreamBackend resource, final RDFNode context,
+            final LinkedResourceCache linkedResources, final int maxDepth) {
+        this(resource, context, linkedResources, maxDepth,
+                Integer.getInteger(MAX_LINKED_RESOURCES_PROPERTY, DEFAULT_MAX_LINKED_RESOURCES));
+    }
+
+    /**
+     * @param resource the description of the resource
+     * @param context the resource
+     * @param linkedResources the descriptions of linked resources
+     * @param maxDepth the number of links to follow
+     * @param maxResources the most linked resources to follow, or zero for no limit
+     */
+    public LinkedResourceBackend(final RdfStreamBackend resource, final RDFNode context,
+            final LinkedResourceCache linkedResources, final int maxDepth, final int maxResources) {
+        super(createDefaultModel());
+        this.resource = resource;
+        this.linkedResources = linkedResources;
+        this.maxDepth = maxDepth;
+        this.maxResources = Math.max(0, maxResources);
+        depths.put(context.asNode(), 0);
+    }
+
+    /**
+     * Cap the number of links a request asks to follow by the {@value #MAX_LINK_DEPTH_PROPERTY}
+     * system property
+     * @param requested the number of links asked for
+     * @return the number of links to follow
+     */
+    public static int linkDepth(final int requested) {
+        return Math.max(0, Math.min(requested, Integer.getInteger(MAX_LINK_DEPTH_PROPERTY, DEFAULT_MAX_LINK_DEPTH)));
+    }
+
+    @Override
+    public Collection<RDFNode> listObjects(final RDFNode subject, final RDFNode property) {
+        final Node node = subject.asNode();
+        final RdfStreamBackend backend = describing(node);
+        final Collection<RDFNode> objects = backend.listObjects(subject, property);
+        final Integer depth = depthOf(node);
+        for (final RDFNode object : objects) {
+            final Node value = object.asNode();
+            if (backend != resource && isPartOf(value) && backend.describes(value)) {
+                owners.putIfAbsent(value, backend);
+                if (depth != null) {
+                    depths.merge(value, depth, Math::min);
+                }
+            } else if (depth != null && depth < maxDepth && object.isURIResource()) {
+                depths.merge(value, depth + 1, Math::min);
+            }
+        }
+        return objects;
+    }
+
+    @Override
+    public Collection<RDFNode> listSubjects(final RDFNode property, final RDFNode object) {
+        final Collection<RDFNode> subjects = resource.listSubjects(property, object);
+        if (followed.isEmpty()) {
+            return subjects;
+        }
+        final ImmutableSet.Builder<RDFNode> all = ImmutableSet.<RDFNode>builder().addAll(subjects);
+        followed.values().forEach(linked -> all.addAll(linked.listSubjects(property, object)));
+        return all.build();
+    }
+
+    /**
+     * @return the number of linked resources followed
+     */
+    public int followedCount() {
+        return followed.size();
+    }
+
+    /**
+     * @return the number of links from the resource to a node, or null if it was not reached by a link
+     */
+    private Integer depthOf(final Node node) {
+        return resource.describes(node) ? Integer.valueOf(0) : depths.get(node);
+    }
+
+    /**
+     * @return whether a node is described as part of the resource that links to it, rather than
+     *         by a resource of its own
+     */
+    private static boolean isPartOf(final Node node) {
+        return node.isBlank() || node.isURI() && node.getURI().indexOf('#') >= 0;
+    }
+
+    /**
+     * @return the backend that holds the description of a node
+     * @throws LDPathBudgetExceededException if the node is one more linked resource than may be followed
+     */
+    private RdfStreamBackend describing(final Node node) {
+        if (resource.describes(node)) {
+            return resource;
+        }
+        final RdfStreamBackend owner = owners.get(node);
+        if (owner != null) {
+            return owner;
+        }
+        if (!node.isURI() || !depths.containsKey(node)) {
+            return resource;
+        }
+        final RdfStreamBackend linked = followed.get(node);
+        if (linked != null) {
+            return linked;
+        }
+        if (maxResources > 0 && followed.size() >= maxResources) {
+            TransformMetrics.counter(LinkedResourceBackend.class, "exceeded").inc();
+            throw new LDPathBudgetExceededException(String.format(
+                    "LDPath evaluation followed links to more than the limit of %d resources", maxResources));
+        }
+        final RdfStreamBackend loaded = linkedResources.get(node);
+        followed.put(node, loaded);
+        return loaded;
+    }
+}
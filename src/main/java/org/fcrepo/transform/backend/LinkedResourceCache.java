@@ -0,0 +1,100 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.backend;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.fcrepo.transform.TransformMetrics;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * The descriptions of the repository resources that LDPath evaluations have followed links to
+ * during a single request, so that one reached by many evaluations, such as the shared parent of
+ * the resources of a batch, is only loaded once. Descriptions are loaded one at a time, as loading
+ * reads through the session of the request. At most {@value #CACHE_SIZE_PROPERTY} descriptions
+ * are kept, the least recently used being dropped first, so that a long batch does not hold every
+ * resource it has linked to; how many an evaluation may follow is limited by
+ * {@link LinkedResourceBackend}.
+ *
+ * @author agent
+ */
+public class LinkedResourceCache {
+
+    public static final String CACHE_SIZE_PROPERTY = "fcrepo.transform.ldpath.linkedResourceCacheSize";
+
+    /**
+     * The default number of descriptions kept
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    private final Function<Node, Stream<Triple>> loader;
+
+    private final Map<Node, RdfStreamBackend> descriptions;
+
+    /**
+     * @param loader loads the triples of a repository resource, or none if it is not one
+     */
+    public LinkedResourceCache(final Function<Node, Stream<Triple>> loader) {
+        this(loader, Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+    }
+
+    /**
+     * @param loader loads the triples of a repository resource, or none if it is not one
+     * @param maxSize the most descriptions to keep
+     */
+    public LinkedResourceCache(final Function<Node, Stream<Triple>> loader, final int maxSize) {
+        this.loader = loader;
+        final int size = Math.max(1, maxSize);
+        this.descriptions = new LinkedHashMap<Node, RdfStreamBackend>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Node, RdfStreamBackend> eldest) {
+                return size() > size;
+            }
+        };
+    }
+
+    /**
+     * Get the description of a linked resource, loading it if needed
+     * @param resource the resource
+     * @return the description
+     */
+    public synchronized RdfStreamBackend get(final Node resource) {
+        final RdfStreamBackend cached = descriptions.get(resource);
+        if (cached != null) {
+            TransformMetrics.counter(LinkedResourceCache.class, "hits").inc();
+            return cached;
+        }
+        TransformMetrics.counter(LinkedResourceCache.class, "loads").inc();
+        final RdfStreamBackend loaded = new RdfStreamBackend(resource, loader.apply(resource));
+        descriptions.put(resource, loaded);
+        return loaded;
+    }
+
+    /**
+     * @return the number of descriptions kept
+     */
+    public synchronized int size() {
+        return descriptions.size();
+    }
+}
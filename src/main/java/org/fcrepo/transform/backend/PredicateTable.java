@@ -0,0 +1,190 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.backend;
+
+import static java.util.Arrays.copyOf;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import com.hp.hpl.jena.graph.Node;
+
+/**
+ * The outgoing triples of a single subject, as an open-addressing table from each predicate
+ * to a compact array of its objects. The table is filled in one pass and then frozen, after
+ * which it is only read.
+ *
+ * @author agent
+ */
+final class PredicateTable {
+
+    private static final Node[] NONE = new Node[0];
+
+    /**
+     * Arrays of objects up to this length are checked for duplicates pairwise
+     */
+    private static final int PAIRWISE_DEDUPLICATION = 8;
+
+    private Node[] predicates = new Node[16];
+
+    private Node[][] objects = new Node[16][];
+
+    private int[] counts = new int[16];
+
+    private int size;
+
+    private volatile Node[] allObjects;
+
+    /**
+     * Add a triple of the subject
+     * @param predicate the predicate
+     * @param object the object
+     */
+    void add(final Node predicate, final Node object) {
+        int slot = slotOf(predicates, predicate);
+        if (predicates[slot] == null) {
+            if (2 * (size + 1) > predicates.length) {
+                grow();
+                slot = slotOf(predicates, predicate);
+            }
+            predicates[slot] = predicate;
+            objects[slot] = new Node[2];
+            size++;
+        } else if (counts[slot] == objects[slot].length) {
+            objects[slot] = copyOf(objects[slot], 2 * counts[slot]);
+        }
+        objects[slot][counts[slot]++] = object;
+    }
+
+    /**
+     * Trim the arrays of objects and collapse duplicate triples
+     * @return this table
+     */
+    PredicateTable freeze() {
+        for (int slot = 0; slot < predicates.length; slot++) {
+            if (predicates[slot] != null) {
+                objects[slot] = distinct(objects[slot], counts[slot]);
+                counts[slot] = objects[slot].length;
+            }
+        }
+        counts = null;
+        return this;
+    }
+
+    /**
+     * @param predicate a predicate, or null for any predicate
+     * @return the distinct objects of the predicate
+     */
+    Node[] get(final Node predicate) {
+        if (predicate == null) {
+            Node[] all = allObjects;
+            if (all == null) {
+                // computing the same array twice is harmless
+                all = all();
+                allObjects = all;
+            }
+            return all;
+        }
+        final int slot = slotOf(predicates, predicate);
+        return predicates[slot] == null ? NONE : objects[slot];
+    }
+
+    /**
+     * @param action receives each predicate with its objects
+     */
+    void forEach(final BiConsumer<Node, Node[]> action) {
+        for (int slot = 0; slot < predicates.length; slot++) {
+            if (predicates[slot] != null) {
+                action.accept(predicates[slot], objects[slot]);
+            }
+        }
+    }
+
+    /**
+     * @return whether the table holds no triples
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private Node[] all() {
+        if (size == 1) {
+            for (int slot = 0; ; slot++) {
+                if (predicates[slot] != null) {
+                    return objects[slot];
+                }
+            }
+        }
+        final Set<Node> all = new LinkedHashSet<>();
+        forEach((predicate, values) -> Collections.addAll(all, values));
+        return all.toArray(NONE);
+    }
+
+    private void grow() {
+        final Node[] oldPredicates = predicates;
+        final Node[][] oldObjects = objects;
+        final int[] oldCounts = counts;
+        predicates = new Node[2 * oldPredicates.length];
+        objects = new Node[predicates.length][];
+        counts = new int[predicates.length];
+        for (int old = 0; old < oldPredicates.length; old++) {
+            if (oldPredicates[old] != null) {
+                final int slot = slotOf(predicates, oldPredicates[old]);
+                predicates[slot] = oldPredicates[old];
+                objects[slot] = oldObjects[old];
+                counts[slot] = oldCounts[old];
+            }
+        }
+    }
+
+    /**
+     * Probe linearly for the slot of a predicate, or the free slot it would take
+     */
+    private static int slotOf(final Node[] table, final Node predicate) {
+        final int mask = table.length - 1;
+        final int hash = predicate.hashCode();
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (table[slot] != null && !table[slot].equals(predicate)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static Node[] distinct(final Node[] values, final int count) {
+        if (count > PAIRWISE_DEDUPLICATION) {
+            final Set<Node> distinct = new LinkedHashSet<>(2 * count);
+            for (int i = 0; i < count; i++) {
+                distinct.add(values[i]);
+            }
+            return distinct.size() == values.length ? values : distinct.toArray(NONE);
+        }
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int j = 0;
+            while (j < kept && !values[j].equals(values[i])) {
+                j++;
+            }
+            if (j == kept) {
+                values[kept++] = values[i];
+            }
+        }
+        return kept == values.length ? values : copyOf(values, kept);
+    }
+}
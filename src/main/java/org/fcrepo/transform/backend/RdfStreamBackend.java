@@ -0,0 +1,194 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.backend;
+
+import static com.google.common.collect.Iterables.concat;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.marmotta.ldpath.backend.jena.GenericJenaBackend;
+
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableSet;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * An LDPath backend over a stream of triples, such as the description of a single resource.
+ * The triples are read once into a subject, predicate and object index of graph nodes, which
+ * is far lighter than the triple tables of a Jena Model; the index for reverse paths is only
+ * built if a program asks for it. Given the resource the triples describe, its own triples are
+ * kept apart in a {@link PredicateTable}, as most steps of a program look the resource itself up.
+ *
+ * @author agent
+ */
+public class RdfStreamBackend extends GenericJenaBackend {
+
+    private final Model nodeFactory;
+
+    private final Node topic;
+
+    private final PredicateTable topicObjects;
+
+    private final Map<Node, Map<Node, ImmutableSet<Node>>> objectsBySubject;
+
+    private volatile Map<Node, Map<Node, ImmutableSet<Node>>> subjectsByObject;
+
+    private final int tripleCount;
+
+    /**
+     * Index the given triples
+     * @param triples the triples
+     */
+    public RdfStreamBackend(final Stream<Triple> triples) {
+        this(null, triples);
+    }
+
+    /**
+     * Index the triples of a resource, keeping those about the resource itself apart
+     * @param topic the resource, or null to index every subject alike
+     * @param triples the triples
+     */
+    public RdfStreamBackend(final Node topic, final Stream<Triple> triples) {
+        this(createDefaultModel(), topic, triples);
+    }
+
+    /**
+     * @param nodeFactory an empty model, used only to create nodes
+     * @param topic the resource, or null to index every subject alike
+     * @param triples the triples
+     */
+    private RdfStreamBackend(final Model nodeFactory, final Node topic, final Stream<Triple> triples) {
+        super(nodeFactory);
+        this.nodeFactory = nodeFactory;
+        this.topic = topic;
+
+        final PredicateTable table = new PredicateTable();
+        final Map<Node, Map<Node, ImmutableSet.Builder<Node>>> index = new HashMap<>();
+        final int[] count = new int[1];
+        triples.forEach(triple -> {
+            count[0]++;
+            if (triple.getSubject().equals(topic)) {
+                table.add(triple.getPredicate(), triple.getObject());
+                return;
+            }
+            index.computeIfAbsent(triple.getSubject(), s -> new HashMap<>())
+                    .computeIfAbsent(triple.getPredicate(), p -> ImmutableSet.builder())
+                    .add(triple.getObject());
+        });
+        this.topicObjects = table.freeze();
+        this.objectsBySubject = build(index);
+        this.tripleCount = count[0];
+    }
+
+    @Override
+    public Collection<RDFNode> listObjects(final RDFNode subject, final RDFNode property) {
+        if (subject.asNode().equals(topic)) {
+            final Node[] objects = topicObjects.get(property == null ? null : property.asNode());
+            return Collections2.transform(asList(objects), nodeFactory::asRDFNode);
+        }
+        return select(objectsBySubject, subject, property);
+    }
+
+    @Override
+    public Collection<RDFNode> listSubjects(final RDFNode property, final RDFNode object) {
+        Map<Node, Map<Node, ImmutableSet<Node>>> reverse = subjectsByObject;
+        if (reverse == null) {
+            reverse = indexSubjectsByObject();
+        }
+        return select(reverse, object, property);
+    }
+
+    /**
+     * Build the index for reverse paths, once, as backends of linked resources are shared
+     * between the evaluations of a request
+     */
+    private synchronized Map<Node, Map<Node, ImmutableSet<Node>>> indexSubjectsByObject() {
+        if (subjectsByObject == null) {
+            final Map<Node, Map<Node, ImmutableSet.Builder<Node>>> index = new HashMap<>();
+            objectsBySubject.forEach((subject, predicates) -> predicates.forEach((predicate, objects) ->
+                    objects.forEach(o -> index.computeIfAbsent(o, x -> new HashMap<>())
+                            .computeIfAbsent(predicate, p -> ImmutableSet.builder())
+                            .add(subject))));
+            topicObjects.forEach((predicate, objects) -> {
+                for (final Node o : objects) {
+                    index.computeIfAbsent(o, x -> new HashMap<>())
+                            .computeIfAbsent(predicate, p -> ImmutableSet.builder())
+                            .add(topic);
+                }
+            });
+            subjectsByObject = build(index);
+        }
+        return subjectsByObject;
+    }
+
+    /**
+     * @return the number of triples read
+     */
+    public int tripleCount() {
+        return tripleCount;
+    }
+
+    /**
+     * @param subject a subject
+     * @return whether any triples about the subject were read
+     */
+    public boolean describes(final Node subject) {
+        return objectsBySubject.containsKey(subject) || subject.equals(topic) && !topicObjects.isEmpty();
+    }
+
+    /**
+     * @return the number of distinct subjects indexed
+     */
+    public int subjectCount() {
+        return objectsBySubject.size() + (topicObjects.isEmpty() ? 0 : 1);
+    }
+
+    private Collection<RDFNode> select(final Map<Node, Map<Node, ImmutableSet<Node>>> index,
+            final RDFNode node, final RDFNode property) {
+        final Map<Node, ImmutableSet<Node>> byPredicate = index.getOrDefault(node.asNode(), emptyMap());
+        final Collection<Node> selected;
+        if (property == null) {
+            // a wildcard property
+            selected = byPredicate.size() == 1 ? byPredicate.values().iterator().next() :
+                    ImmutableSet.copyOf(concat(byPredicate.values()));
+        } else {
+            selected = byPredicate.getOrDefault(property.asNode(), ImmutableSet.of());
+        }
+        return Collections2.transform(selected, nodeFactory::asRDFNode);
+    }
+
+    private static Map<Node, Map<Node, ImmutableSet<Node>>> build(
+            final Map<Node, Map<Node, ImmutableSet.Builder<Node>>> index) {
+        final Map<Node, Map<Node, ImmutableSet<Node>>> built = new HashMap<>(index.size() * 4 / 3 + 1);
+        index.forEach((node, byPredicate) -> {
+            final Map<Node, ImmutableSet<Node>> predicates = new HashMap<>(byPredicate.size() * 4 / 3 + 1);
+            byPredicate.forEach((predicate, nodes) -> predicates.put(predicate, nodes.build()));
+            built.put(node, predicates);
+        });
+        return built;
+    }
+}
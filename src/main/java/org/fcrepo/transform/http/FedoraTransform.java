@@ -17,9 +17,17 @@
  */
 package org.fcrepo.transform.http;
 
-import static com.google.common.collect.ImmutableMap.of;
+import static com.google.common.hash.Hashing.sha1;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createResource;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static java.util.function.Function.identity;
+import static javax.ws.rs.core.HttpHeaders.VARY;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 import static javax.ws.rs.core.Response.ok;
+import static javax.ws.rs.core.Response.status;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static org.apache.jena.riot.WebContent.contentTypeN3;
 import static org.apache.jena.riot.WebContent.contentTypeNTriples;
 import static org.apache.jena.riot.WebContent.contentTypeRDFXML;
@@ -32,43 +40,92 @@ import static org.apache.jena.riot.WebContent.contentTypeTextCSV;
 import static org.apache.jena.riot.WebContent.contentTypeTextPlain;
 import static org.apache.jena.riot.WebContent.contentTypeTextTSV;
 import static org.apache.jena.riot.WebContent.contentTypeTurtle;
+import static org.fcrepo.kernel.api.RdfLexicon.CONTAINS;
+import static org.fcrepo.kernel.api.RequiredRdfContext.EMBED_RESOURCES;
+import static org.fcrepo.kernel.api.RequiredRdfContext.INBOUND_REFERENCES;
+import static org.fcrepo.kernel.api.RequiredRdfContext.LDP_CONTAINMENT;
+import static org.fcrepo.kernel.api.RequiredRdfContext.LDP_MEMBERSHIP;
+import static org.fcrepo.kernel.api.RequiredRdfContext.MINIMAL;
+import static org.fcrepo.kernel.api.RequiredRdfContext.PROPERTIES;
+import static org.fcrepo.kernel.api.RequiredRdfContext.SERVER_MANAGED;
+import static org.fcrepo.transform.http.responses.LDPathBatchOutput.APPLICATION_NDJSON;
 import static org.fcrepo.transform.transformations.LDPathTransform.APPLICATION_RDF_LDPATH;
-import static org.fcrepo.transform.transformations.LDPathTransform.CONFIGURATION_FOLDER;
 import static org.fcrepo.transform.transformations.LDPathTransform.getResourceTransform;
-import static org.fcrepo.transform.transformations.LDPathTransform.DEFAULT_TRANSFORM_RESOURCE;
+import static org.fcrepo.transform.transformations.SparqlQueryTransform.getStoredTransform;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 
+import org.apache.commons.io.IOUtils;
 import org.fcrepo.http.api.ContentExposingResource;
-import org.fcrepo.kernel.api.exception.InvalidChecksumException;
+import org.fcrepo.http.commons.domain.PreferTag;
+import org.fcrepo.http.commons.domain.ldp.LdpPreferTag;
+import org.fcrepo.kernel.api.RdfStream;
+import org.fcrepo.kernel.api.RequiredRdfContext;
 import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
-import org.fcrepo.kernel.api.models.FedoraBinary;
 import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.kernel.api.rdf.DefaultRdfStream;
+import org.fcrepo.transform.DepthFirstResourceIterator;
+import org.fcrepo.transform.TransformConfigurationBootstrap;
+import org.fcrepo.transform.TransformMetrics;
+import org.fcrepo.transform.TransformRequestExecutor;
+import org.fcrepo.transform.TransformWorkerPool;
+import org.fcrepo.transform.Transformation;
+import org.fcrepo.transform.backend.LinkedResourceBackend;
+import org.fcrepo.transform.backend.LinkedResourceCache;
+import org.fcrepo.transform.backend.RdfStreamBackend;
 import org.fcrepo.transform.TransformationFactory;
+import org.fcrepo.transform.http.responses.LDPathBatchOutput;
+import org.fcrepo.transform.http.responses.LDPathResultCache;
+import org.fcrepo.transform.http.responses.LDPathResultsOutput;
+import org.fcrepo.transform.transformations.LDPathProgramIndex;
+import org.fcrepo.transform.transformations.LDPathResult;
+import org.fcrepo.transform.transformations.LDPathTransform;
+import org.fcrepo.transform.transformations.SparqlExecutionLimits;
+import org.fcrepo.transform.transformations.SparqlQueryRegistry;
+import org.fcrepo.transform.transformations.SparqlQueryTransform;
 import org.jvnet.hk2.annotations.Optional;
 import org.slf4j.Logger;
 import org.springframework.context.annotation.Scope;
 
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.rdf.model.Resource;
 
 /**
  * Endpoint for transforming object properties using stored
@@ -85,12 +142,42 @@ public class FedoraTransform extends ContentExposingResource {
 
     private static final Logger LOGGER = getLogger(FedoraTransform.class);
 
+    private static final String PREFER = "Prefer";
+
+    private static final Set<RequiredRdfContext> LINKED_TRIPLES = ImmutableSet.of(PROPERTIES, SERVER_MANAGED);
+
     @Inject
     @Optional
     private TransformationFactory transformationFactory;
 
+    @Inject
+    @Optional
+    private TransformConfigurationBootstrap transformConfiguration;
+
+    @Inject
+    @Optional
+    private LDPathProgramIndex programIndex;
+
+    @Inject
+    @Optional
+    private SparqlQueryRegistry queryRegistry;
+
+    @Inject
+    @Optional
+    private TransformWorkerPool workerPool;
+
+    @Inject
+    @Optional
+    private LDPathResultCache resultCache;
+
+    @Inject
+    @Optional
+    private TransformRequestExecutor requestExecutor;
+
     @PathParam("path") protected String externalPath;
 
+    private LinkedResourceCache linkedResources;
+
     /**
      * Default entry point
      */
@@ -107,76 +194,409 @@ public class FedoraTransform extends ContentExposingResource {
 
 
     /**
-     * Register the LDPath configuration tree in JCR
+     * Execute an LDpath program transform
      *
+     * @param program the LDpath program
+     * @param linkDepth how many links to follow out of the resource into the repository
+     * @return Binary blob
      * @throws RepositoryException if repository exception occurred
-     * @throws java.io.IOException if IO exception occurred
      */
-    @PostConstruct
-    public void setUpRepositoryConfiguration() throws RepositoryException, IOException {
+    @GET
+    @Path("{program}")
+    @Produces({APPLICATION_JSON})
+    @Timed
+    public Response evaluateLdpathProgram(@PathParam("program") final String program,
+            @QueryParam("linkDepth") @DefaultValue("0") final int linkDepth) throws RepositoryException {
+        LOGGER.info("GET transform, '{}', for '{}'", program, externalPath);
 
-        final Session internalSession = sessions.getInternalSession();
-        try {
+        if (transformConfiguration != null) {
+            transformConfiguration.ensureBootstrapped();
+        }
+
+        final LDPathTransform transform = lookup(program);
+
+        // only programs stored in the repository have a digest to tell their versions apart, and
+        // results that follow links depend on more than this resource, so are neither tagged nor cached
+        final int links = LinkedResourceBackend.linkDepth(linkDepth);
+        final URI programDigest = links == 0 ? transform.getProgramDigest() : null;
+        final Set<RequiredRdfContext> contexts = preferredContexts();
+        final EntityTag etag = programDigest == null ? null : new EntityTag(
+                sha1().hashString(resource().getEtagValue() + programDigest + contexts, UTF_8).toString());
+
+        // the results change with the program and the Prefer header as well as the resource, so
+        // they are only compared by tag; the resource's Last-Modified would miss edits to the program
+        if (etag != null) {
+            final ResponseBuilder notModified = request.evaluatePreconditions(etag);
+            if (notModified != null) {
+                LOGGER.debug("Transform '{}' of '{}' is not modified", program, externalPath);
+                TransformMetrics.counter(FedoraTransform.class, "notModified").inc();
+                return notModified
+                    .tag(etag)
+                    .header(VARY, PREFER)
+                    .header("Warning", "The fcr:transform endpoint is deprecated and will be removed" +
+                            "in a future version of Fedora")
+                    .build();
+            }
+        }
+
+        // the triples of the resource are only read if its results are not already cached
+        return respond(() -> ok()
+            .entity(resultCache != null && programDigest != null ?
+                    resultCache.getResult(resource(), contexts, programDigest,
+                            () -> transform.evaluate(getResourceTriples(transform))) :
+                    evaluate(transform, getResourceTriples(transform), links).evaluate())
+            .tag(etag)
+            .header(VARY, PREFER)
+            .header("Warning", "The fcr:transform endpoint is deprecated and will be removed" +
+                    "in a future version of Fedora")
+            .build());
+    }
+
+    /**
+     * Execute several LDpath program transforms against the same resource, reading its triples
+     * only once for all of them
+     *
+     * @param programs the LDpath programs
+     * @param linkDepth how many links to follow out of the resource into the repository
+     * @return the results of each program, by program
+     * @throws RepositoryException if repository exception occurred
+     */
+    @GET
+    @Produces({APPLICATION_JSON})
+    @Timed
+    public Response evaluateLdpathPrograms(@QueryParam("program") final List<String> programs,
+            @QueryParam("linkDepth") @DefaultValue("0") final int linkDepth) throws RepositoryException {
+        LOGGER.info("GET transforms, {}, for '{}'", programs, externalPath);
 
-            // Create this resource or it becomes a PairTree which is not referenceable.
-            containerService.findOrCreate(internalSession, "/fedora:system/fedora:transform");
+        if (programs == null || programs.isEmpty()) {
+            return status(BAD_REQUEST).entity("No transformation keys were given").build();
+        }
+        if (transformConfiguration != null) {
+            transformConfiguration.ensureBootstrapped();
+        }
 
-            final Map<String, String> transformations = of(
-                    "default", "/ldpath/default/ldpath_program.txt",
-                    "deluxe", "/ldpath/deluxe/ldpath_program.txt");
-            transformations.forEach((key, value) -> {
+        final Map<String, LDPathTransform> transforms = new LinkedHashMap<>();
+        for (final String program : programs) {
+            if (!transforms.containsKey(program)) {
+                transforms.put(program, lookup(program));
+            }
+        }
 
-                final FedoraResource resource =
-                        containerService.findOrCreate(internalSession, CONFIGURATION_FOLDER + key);
-                LOGGER.debug("Transformation default resource: {}", resource.getPath());
+        final int links = LinkedResourceBackend.linkDepth(linkDepth);
+        return respond(() -> {
+            final RdfStream triples = getResourceTriples(transforms.values());
+            final Resource context = createResource(triples.topic().getURI());
+            final RdfStreamBackend backend = LDPathTransform.retrieve(triples);
+            final Map<String, LDPathResult> results = new LinkedHashMap<>();
+            transforms.forEach((program, transform) -> results.put(program,
+                    transform.evaluate(backend, context, linkedResources(links), links).evaluate()));
+            return ok()
+                .entity(new LDPathResultsOutput(results))
+                .header(VARY, PREFER)
+                .header("Warning", "The fcr:transform endpoint is deprecated and will be removed" +
+                        "in a future version of Fedora")
+                .build();
+        });
+    }
 
-                final Stream<FedoraResource> children = resource.getChildren();
-                children.forEach(child -> LOGGER.debug("Child is {}", child.getPath()));
-                final String uploadPath = CONFIGURATION_FOLDER + key + "/" + DEFAULT_TRANSFORM_RESOURCE;
-                if (!resource.getChildren().anyMatch(child -> child.getPath().equalsIgnoreCase(uploadPath))) {
-                    LOGGER.debug("Uploading the stream to {}", uploadPath);
-                    final FedoraBinary base = binaryService.findOrCreate(internalSession, uploadPath);
-                    try {
-                        base.setContent(getClass().getResourceAsStream(value), null, null, null, null);
-                    } catch (final InvalidChecksumException e) {
-                        throw new RepositoryRuntimeException(e);
-                    }
-                }
-            });
+    /**
+     * Look up the program of a transform key for this resource
+     *
+     * @param program the transform key
+     * @return the transform
+     * @throws RepositoryException if repository exception occurred
+     */
+    private LDPathTransform lookup(final String program) throws RepositoryException {
+        try (final Timer.Context timing = TransformMetrics.timer(FedoraTransform.class, "lookup").time()) {
+            return programIndex != null ?
+                    programIndex.getResourceTransform(resource(), session, nodeService, program) :
+                    getResourceTransform(resource(), session, nodeService, program);
+        }
+    }
+
+    /**
+     * Build the response to a request once the request executor, if there is one, has room
+     * for it. Reading the triples of the resource and evaluating the transform are left to
+     * the builder, so that a request waiting its turn holds neither.
+     *
+     * @param respond builds the response
+     * @return the response
+     */
+    private Response respond(final Supplier<Response> respond) {
+        return requestExecutor == null ? respond.get() : requestExecutor.respond(respond);
+    }
 
-            internalSession.save();
-        } finally {
-            internalSession.logout();
+    /**
+     * Get the contexts of the triples of the resource that the Prefer header of the request
+     * asks for, as {@link #getResourceTriples(int)} chooses them
+     *
+     * @return the contexts
+     */
+    private Set<RequiredRdfContext> preferredContexts() {
+        final PreferTag preference = prefer != null && prefer.hasReturn() ? prefer.getReturn() :
+                prefer != null && prefer.hasHandling() ? prefer.getHandling() : PreferTag.emptyTag();
+        final LdpPreferTag ldpPreferences = new LdpPreferTag(preference);
+        final Set<RequiredRdfContext> contexts = EnumSet.of(PROPERTIES);
+        if (ldpPreferences.prefersServerManaged()) {
+            contexts.add(SERVER_MANAGED);
+        }
+        if (preference.getValue().equals("minimal")) {
+            contexts.add(MINIMAL);
+            return contexts;
+        }
+        if (ldpPreferences.prefersContainment()) {
+            contexts.add(LDP_CONTAINMENT);
+        }
+        if (ldpPreferences.prefersMembership()) {
+            contexts.add(LDP_MEMBERSHIP);
+        }
+        if (ldpPreferences.prefersReferences()) {
+            contexts.add(INBOUND_REFERENCES);
         }
+        if (ldpPreferences.prefersEmbed()) {
+            contexts.add(EMBED_RESOURCES);
+        }
+        return contexts;
     }
 
     /**
-     * Execute an LDpath program transform
+     * Execute an LDpath program transform against many resources, reusing the session, the
+     * compiled programs and the namespace mappings across all of them
      *
      * @param program the LDpath program
-     * @return Binary blob
+     * @param parallel whether to evaluate the program for several resources at once
+     * @param ordered whether parallel results are written in the order of the paths
+     * @param linkDepth how many links to follow out of each resource into the repository
+     * @param requestBodyStream the paths of the resources, one per line, relative to this
+     *        resource unless they begin with a slash
+     * @return the results for each resource, as newline-delimited JSON
+     * @throws RepositoryException if repository exception occurred
+     * @throws IOException if the paths could not be read
+     */
+    @POST
+    @Path("{program}/batch")
+    @Consumes({TEXT_PLAIN})
+    @Produces({APPLICATION_NDJSON})
+    @Timed
+    public Response evaluateLdpathProgramBatch(@PathParam("program") final String program,
+            @QueryParam("parallel") @DefaultValue("false") final boolean parallel,
+            @QueryParam("ordered") @DefaultValue("true") final boolean ordered,
+            @QueryParam("linkDepth") @DefaultValue("0") final int linkDepth,
+            final InputStream requestBodyStream) throws RepositoryException, IOException {
+        LOGGER.info("POST batch transform, '{}', for '{}'", program, externalPath);
+
+        if (transformConfiguration != null) {
+            transformConfiguration.ensureBootstrapped();
+        }
+
+        final List<String> paths = IOUtils.readLines(requestBodyStream, UTF_8).stream()
+                .map(String::trim)
+                .filter(path -> !path.isEmpty())
+                .collect(Collectors.toList());
+
+        // without the shared index, programs are still only read once for the whole batch
+        final LDPathProgramIndex index = programIndex != null ? programIndex : new LDPathProgramIndex();
+        final int links = LinkedResourceBackend.linkDepth(linkDepth);
+
+        return ok()
+            .entity(batchOutput(paths, identity(),
+                    path -> evaluate(index, getResourceFromPath(resolvePath(path)), program, links), parallel, ordered,
+                    links))
+            .header("Warning", "The fcr:transform endpoint is deprecated and will be removed" +
+                    "in a future version of Fedora")
+            .build();
+    }
+
+    /**
+     * Execute an LDpath program transform against a resource and its descendants, walking
+     * them depth-first as the results are read. sparql/subtree is the stored SPARQL transform
+     * named subtree, not the subtree of an LDPath program named sparql.
+     *
+     * @param program the LDpath program
+     * @param depth how many levels of descendants to transform, or a negative number for all
+     * @param parallel whether to evaluate the program for several resources at once
+     * @param ordered whether parallel results are written in the order of the walk
+     * @param linkDepth how many links to follow out of each resource into the repository
+     * @return the results for each resource, as newline-delimited JSON
      * @throws RepositoryException if repository exception occurred
      */
     @GET
-    @Path("{program}")
-    @Produces({APPLICATION_JSON})
+    @Path("{program: (?!sparql/)[^/]+}/subtree")
+    @Produces({APPLICATION_NDJSON})
     @Timed
-    public Response evaluateLdpathProgram(@PathParam("program") final String program)
-            throws RepositoryException {
-        LOGGER.info("GET transform, '{}', for '{}'", program, externalPath);
+    public Response evaluateLdpathProgramSubtree(@PathParam("program") final String program,
+            @QueryParam("depth") @DefaultValue("-1") final int depth,
+            @QueryParam("parallel") @DefaultValue("false") final boolean parallel,
+            @QueryParam("ordered") @DefaultValue("true") final boolean ordered,
+            @QueryParam("linkDepth") @DefaultValue("0") final int linkDepth) throws RepositoryException {
+        LOGGER.info("GET subtree transform, '{}', for '{}' to depth {}", program, externalPath, depth);
+
+        if (transformConfiguration != null) {
+            transformConfiguration.ensureBootstrapped();
+        }
+
+        final FedoraResource root = resource();
+        final LDPathProgramIndex index = programIndex != null ? programIndex : new LDPathProgramIndex();
+        final int links = LinkedResourceBackend.linkDepth(linkDepth);
 
         return ok()
-            .entity(getResourceTransform(resource(), session, nodeService, program).apply(getResourceTriples()))
+            .entity(batchOutput(() -> new DepthFirstResourceIterator(root, depth),
+                    FedoraResource::getPath, descendant -> evaluate(index, descendant, program, links), parallel,
+                    ordered, links))
             .header("Warning", "The fcr:transform endpoint is deprecated and will be removed" +
                     "in a future version of Fedora")
             .build();
+    }
+
+    /**
+     * Stream the results of a transform for many resources, evaluating them on the worker pool
+     * if asked to and there is one. Following links reads linked resources through the session
+     * as the programs are evaluated, so a batch that follows links is always evaluated on the
+     * writing thread.
+     */
+    private <T> LDPathBatchOutput<T> batchOutput(final Iterable<T> resources, final Function<T, String> pathOf,
+            final Function<T, LDPathResult> transform, final boolean parallel, final boolean ordered,
+            final int linkDepth) {
+        if (parallel && linkDepth > 0) {
+            LOGGER.debug("Evaluating a batch that follows links sequentially");
+        } else if (parallel && workerPool != null) {
+            return new LDPathBatchOutput<>(resources, pathOf, transform, workerPool.getExecutor(),
+                    2 * workerPool.getParallelism(), ordered);
+        }
+        return new LDPathBatchOutput<>(resources, pathOf, transform);
+    }
+
+    /**
+     * Evaluate the program of a transform key for one of many resources
+     *
+     * @param index the index to resolve the program through
+     * @param target the resource
+     * @param program the transform key
+     * @param linkDepth how many links to follow out of the resource
+     * @return the prepared evaluation
+     */
+    private LDPathResult evaluate(final LDPathProgramIndex index, final FedoraResource target,
+            final String program, final int linkDepth) {
+        resource = target;
+        try {
+            final LDPathTransform transform;
+            try (final Timer.Context timing = TransformMetrics.timer(FedoraTransform.class, "lookup").time()) {
+                transform = index.getResourceTransform(target, session, nodeService, program);
+            }
+            return evaluate(transform, getResourceTriples(transform), linkDepth);
+        } catch (final RepositoryException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+    }
+
+    /**
+     * Prepare the evaluation of a transform, following links out of the resource if asked to
+     *
+     * @param transform the transform
+     * @param triples the triples of the resource
+     * @param linkDepth how many links to follow
+     * @return the prepared evaluation
+     */
+    private LDPathResult evaluate(final LDPathTransform transform, final RdfStream triples, final int linkDepth) {
+        if (linkDepth == 0) {
+            return transform.evaluate(triples);
+        }
+        return transform.evaluate(triples, linkedResources(linkDepth), linkDepth);
+    }
+
+    /**
+     * Get the descriptions of linked resources shared across this request
+     *
+     * @param linkDepth how many links are to be followed
+     * @return the descriptions, or null if no links are to be followed
+     */
+    private LinkedResourceCache linkedResources(final int linkDepth) {
+        if (linkDepth > 0 && linkedResources == null) {
+            linkedResources = new LinkedResourceCache(this::getLinkedTriples);
+        }
+        return linkDepth > 0 ? linkedResources : null;
+    }
+
+    /**
+     * Get the triples of a resource that an LDPath transform has followed a link to
+     *
+     * @param node the resource
+     * @return its triples, or none if it is not a resource in the repository
+     */
+    private Stream<Triple> getLinkedTriples(final Node node) {
+        final Resource linked = createResource(node.getURI());
+        if (!translator().inDomain(linked)) {
+            return Stream.empty();
+        }
+        try {
+            // read while any failure can still be caught
+            return getTriples(translator().convert(linked), LINKED_TRIPLES).collect(Collectors.toList()).stream();
+        } catch (final RepositoryRuntimeException e) {
+            LOGGER.debug("Could not follow a link to {}: {}", node, e.getMessage());
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Resolve a path from a batch against the path of this resource
+     *
+     * @param path the path
+     * @return the external path of the resource
+     */
+    private String resolvePath(final String path) {
+        if (path.startsWith("/")) {
+            return path.substring(1);
+        }
+        return externalPath == null || externalPath.isEmpty() ? path : externalPath + "/" + path;
+    }
+
+    /**
+     * Execute a stored SPARQL transform
+     *
+     * @param query the name of the stored query
+     * @param timeout the longest time, in ms, the query may run, within the server-wide limit
+     * @param maxRows the most results to write, within the server-wide limit; a response that leaves
+     *        results out says so in a Warning header
+     * @return the query results
+     * @throws RepositoryException if repository exception occurred
+     */
+    @GET
+    @Path("sparql/{query}")
+    @Produces({contentTypeTextTSV, contentTypeTextCSV, contentTypeSSE,
+            contentTypeTextPlain, contentTypeResultsJSON, contentTypeResultsXML,
+            contentTypeResultsBIO, contentTypeTurtle, contentTypeN3,
+            contentTypeNTriples, contentTypeRDFXML})
+    @Timed
+    public Response evaluateSparqlQuery(@PathParam("query") final String query,
+            @QueryParam("timeout") final Long timeout, @QueryParam("maxRows") final Long maxRows)
+            throws RepositoryException {
+        LOGGER.info("GET SPARQL transform, '{}', for '{}'", query, externalPath);
+
+        if (transformConfiguration != null) {
+            transformConfiguration.ensureBootstrapped();
+        }
+
+        final SparqlQueryTransform transform;
+        try (final Timer.Context timing = TransformMetrics.timer(FedoraTransform.class, "lookup", "sparql").time()) {
+            transform = queryRegistry != null ?
+                    queryRegistry.getStoredTransform(session, nodeService, query) :
+                    getStoredTransform(session, nodeService, query);
+        }
 
+        final SparqlExecutionLimits limits = SparqlExecutionLimits.serverLimits().narrow(timeout, maxRows);
+        return respond(() -> ok()
+            .entity(limits.applyTo(transform.apply(getResourceTriples())))
+            .header("Warning", "The fcr:transform endpoint is deprecated and will be removed" +
+                    "in a future version of Fedora")
+            .build());
     }
 
     /**
      * Get the LDPath output as a JSON stream appropriate for e.g. Solr
      *
      * @param contentType the content type
+     * @param timeout the longest time, in ms, a SPARQL query may run, within the server-wide limit
+     * @param maxRows the most SPARQL results to write, within the server-wide limit
      * @param requestBodyStream the request body stream
      * @return LDPath as a JSON stream
      */
@@ -188,6 +608,8 @@ public class FedoraTransform extends ContentExposingResource {
             contentTypeN3, contentTypeNTriples, contentTypeRDFXML})
     @Timed
     public Response evaluateTransform(@HeaderParam("Content-Type") final MediaType contentType,
+                                    @QueryParam("timeout") final Long timeout,
+                                    @QueryParam("maxRows") final Long maxRows,
                                     final InputStream requestBodyStream) {
 
         if (transformationFactory == null) {
@@ -195,12 +617,62 @@ public class FedoraTransform extends ContentExposingResource {
         }
         LOGGER.info("POST transform for '{}'", externalPath);
 
-        return ok()
-            .entity(transformationFactory.getTransform(contentType, requestBodyStream).apply(getResourceTriples()))
+        final Transformation<?> transform = transformationFactory.getTransform(contentType, requestBodyStream);
+        final SparqlExecutionLimits limits = SparqlExecutionLimits.serverLimits().narrow(timeout, maxRows);
+        return respond(() -> ok()
+            .entity(evaluate(transform, getResourceTriples(), limits))
             .header("Warning", "The fcr:transform endpoint is deprecated and will be removed" +
                     "in a future version of Fedora")
-            .build();
+            .build());
+    }
 
+    /**
+     * Evaluate a POSTed transform, limiting the execution of a SPARQL query
+     *
+     * @param transform the transform
+     * @param triples the triples of the resource
+     * @param limits the limits on a SPARQL query
+     * @return the result of the transform
+     */
+    private static Object evaluate(final Transformation<?> transform, final RdfStream triples,
+            final SparqlExecutionLimits limits) {
+        if (transform instanceof LDPathTransform) {
+            // evaluated before the response is committed, so that an overrun budget is answered with 422
+            return ((LDPathTransform) transform).evaluate(triples).evaluate();
+        }
+        final Object result = transform.apply(triples);
+        return result instanceof QueryExecution ? limits.applyTo((QueryExecution) result) : result;
+    }
+
+    /**
+     * Get the triples of the resource that an LDPath transform may traverse. Child containment
+     * triples are only produced when the transform asks for ldp:contains.
+     *
+     * @param transform the transform
+     * @return the triples of the resource
+     */
+    private RdfStream getResourceTriples(final LDPathTransform transform) {
+        return getResourceTriples(singletonList(transform));
+    }
+
+    /**
+     * Get the triples of the resource that any of several LDPath transforms may traverse
+     *
+     * @param transforms the transforms
+     * @return the triples of the resource
+     */
+    private RdfStream getResourceTriples(final Collection<LDPathTransform> transforms) {
+        final Set<Node> required = new HashSet<>();
+        for (final LDPathTransform transform : transforms) {
+            final java.util.Optional<Set<Node>> predicates = transform.getRequiredPredicates();
+            if (!predicates.isPresent()) {
+                return getResourceTriples();
+            }
+            required.addAll(predicates.get());
+        }
+        final RdfStream triples = getResourceTriples(required.contains(CONTAINS.asNode()) ? -1 : 0);
+        return new DefaultRdfStream(triples.topic(),
+                triples.filter(triple -> required.contains(triple.getPredicate())));
     }
 
     @Override
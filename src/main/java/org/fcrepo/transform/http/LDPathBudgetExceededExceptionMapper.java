@@ -0,0 +1,45 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.http;
+
+import static javax.ws.rs.core.Response.status;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+import org.fcrepo.transform.LDPathBudgetExceededException;
+
+/**
+ * Handle LDPathBudgetExceededExceptions. The program cannot be evaluated against the resource
+ * within the budget however often it is retried, so it is answered with 422 Unprocessable Entity.
+ *
+ * @author agent
+ */
+@Provider
+public class LDPathBudgetExceededExceptionMapper implements ExceptionMapper<LDPathBudgetExceededException> {
+
+    private static final int UNPROCESSABLE_ENTITY = 422;
+
+    @Override
+    public Response toResponse(final LDPathBudgetExceededException e) {
+        final String msg = e.getMessage();
+        return status(UNPROCESSABLE_ENTITY).entity(msg).build();
+    }
+
+}
@@ -56,7 +56,10 @@ public class JsonObjectProvider implements ContextResolver<ObjectMapper> {
         return defaultObjectMapper;
     }
 
-    private static ObjectMapper createDefaultMapper() {
+    /**
+     * @return a mapper configured for the serialization of JSON resources
+     */
+    static ObjectMapper createDefaultMapper() {
         final ObjectMapper mapper = new ObjectMapper();
         mapper.setDateFormat(DATE_FORMAT);
 
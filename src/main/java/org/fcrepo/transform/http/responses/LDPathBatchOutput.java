@@ -0,0 +1,226 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.http.responses;
+
+import static com.fasterxml.jackson.core.JsonEncoding.UTF8;
+import static org.fcrepo.transform.http.responses.LDPathResultProvider.JSON_FACTORY;
+import static org.fcrepo.transform.http.responses.LDPathResultProvider.writeFields;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.transform.transformations.LDPathResult;
+import org.slf4j.Logger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * Streams the results of an LDPath transform for many resources as newline-delimited JSON,
+ * one object per resource, flushed as each resource is written. Resources are only drawn
+ * from the source as the client reads the results. A resource that could not be transformed
+ * gets an error in place of its result, rather than ending the stream.
+ *
+ * <p>Given an executor, the programs are evaluated on it, a bounded number of resources at a
+ * time. Resources are still drawn, and their triples read, on the writing thread alone, so
+ * the session is never used by two threads at once. The programs evaluated on the executor
+ * must therefore not read through the session themselves, as programs that follow links into
+ * the repository do.</p>
+ *
+ * @param <T> the type by which the resources are named
+ * @author agent
+ */
+public class LDPathBatchOutput<T> implements StreamingOutput {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final Logger LOGGER = getLogger(LDPathBatchOutput.class);
+
+    private static final SerializedString PATH = new SerializedString("path");
+
+    private static final SerializedString RESULT = new SerializedString("result");
+
+    private static final SerializedString ERROR = new SerializedString("error");
+
+    private final Iterable<T> resources;
+
+    private final Function<T, String> pathOf;
+
+    private final Function<T, LDPathResult> transform;
+
+    private final ExecutorService executor;
+
+    private final int window;
+
+    private final boolean ordered;
+
+    /**
+     * @param resources the resources
+     * @param pathOf gives the path to report for a resource
+     * @param transform evaluates the transform for a resource
+     */
+    public LDPathBatchOutput(final Iterable<T> resources, final Function<T, String> pathOf,
+            final Function<T, LDPathResult> transform) {
+        this(resources, pathOf, transform, null, 1, true);
+    }
+
+    /**
+     * @param resources the resources
+     * @param pathOf gives the path to report for a resource
+     * @param transform evaluates the transform for a resource
+     * @param executor the executor to evaluate programs on, or null to evaluate them while writing
+     * @param window the most resources to have in evaluation at once
+     * @param ordered whether results are written in the order of the resources, rather than as
+     *        they are ready
+     */
+    public LDPathBatchOutput(final Iterable<T> resources, final Function<T, String> pathOf,
+            final Function<T, LDPathResult> transform, final ExecutorService executor, final int window,
+            final boolean ordered) {
+        this.resources = resources;
+        this.pathOf = pathOf;
+        this.transform = transform;
+        this.executor = executor;
+        this.window = Math.max(1, window);
+        this.ordered = ordered;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+        if (executor != null) {
+            writeInParallel(output);
+            return;
+        }
+        for (final T resource : resources) {
+            final String path = pathOf.apply(resource);
+            // each line is encoded whole, so that a resource that fails part way through its
+            // evaluation, such as by overrunning its budget, gets an error line
+            output.write(encodeLine(path, prepare(resource, path)));
+            output.flush();
+        }
+    }
+
+    private void writeInParallel(final OutputStream output) throws IOException {
+        final CompletionService<byte[]> completion = new ExecutorCompletionService<>(executor);
+        final Deque<Future<byte[]>> inFlight = new ArrayDeque<>(window);
+        try {
+            for (final T resource : resources) {
+                final String path = pathOf.apply(resource);
+                final Object result = prepare(resource, path);
+                final Callable<byte[]> encode = () -> encodeLine(path, result);
+                inFlight.add(ordered ? executor.submit(encode) : completion.submit(encode));
+                if (inFlight.size() >= window) {
+                    writeNext(output, completion, inFlight);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                writeNext(output, completion, inFlight);
+            }
+        } finally {
+            // the client may have gone away, leaving results that no one will read
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void writeNext(final OutputStream output, final CompletionService<byte[]> completion,
+            final Deque<Future<byte[]>> inFlight) throws IOException {
+        try {
+            final Future<byte[]> next;
+            if (ordered) {
+                next = inFlight.peek();
+            } else {
+                next = completion.take();
+            }
+            final byte[] line = next.get();
+            inFlight.remove(next);
+            output.write(line);
+            output.flush();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for transform results");
+        } catch (final ExecutionException e) {
+            // encodeLine reports failures as error lines, so this is unexpected
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Prepare the transform of a resource
+     * @return the prepared evaluation, or a message saying why there is none
+     */
+    private Object prepare(final T resource, final String path) {
+        try {
+            return transform.apply(resource);
+        } catch (final RepositoryRuntimeException e) {
+            LOGGER.debug("Could not transform {}: {}", path, e.getMessage());
+            return errorMessage(e);
+        }
+    }
+
+    /**
+     * Evaluate and encode the line for a resource, reporting any failure to evaluate it as an
+     * error line
+     */
+    private static byte[] encodeLine(final String path, final Object result) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (final JsonGenerator generator = JSON_FACTORY.createGenerator(line, UTF8)) {
+            writeLine(generator, path, result);
+        } catch (final RuntimeException e) {
+            LOGGER.debug("Could not transform {}: {}", path, e.getMessage());
+            line.reset();
+            try (final JsonGenerator generator = JSON_FACTORY.createGenerator(line, UTF8)) {
+                writeLine(generator, path, errorMessage(e));
+            }
+        }
+        return line.toByteArray();
+    }
+
+    private static void writeLine(final JsonGenerator generator, final String path, final Object result)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(PATH);
+        generator.writeString(path);
+        if (result instanceof LDPathResult) {
+            generator.writeFieldName(RESULT);
+            writeFields(generator, (LDPathResult) result);
+        } else {
+            generator.writeFieldName(ERROR);
+            generator.writeString((String) result);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    private static String errorMessage(final RuntimeException e) {
+        return e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.http.responses;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.net.URI;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.fcrepo.kernel.api.RequiredRdfContext;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.transform.TransformMetrics;
+import org.fcrepo.transform.transformations.LDPathResult;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Sets;
+
+/**
+ * A bounded cache of serialized LDPath results, keyed by the path and ETag of a resource, the
+ * contexts its triples were read from, as chosen by the Prefer header of the request, and the
+ * digest of the program evaluated against it. The ETag of a resource changes whenever it
+ * is modified, and the digest of a program whenever it is edited, so a stale result can never
+ * be found again; it simply ages out of the cache. The cache is bounded by the total size of
+ * the results it holds, each counted with a fixed overhead so that the number of entries is
+ * bounded too.
+ *
+ * @author agent
+ */
+@Component
+public class LDPathResultCache {
+
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 64 * 1024 * 1024;
+
+    /**
+     * The weight, in bytes, given to each entry in addition to its serialized result
+     */
+    static final int ENTRY_OVERHEAD = 256;
+
+    private static final Counter HITS = TransformMetrics.counter(LDPathResultCache.class, "hits");
+
+    private static final Counter MISSES = TransformMetrics.counter(LDPathResultCache.class, "misses");
+
+    private static final Counter EVICTIONS = TransformMetrics.counter(LDPathResultCache.class, "evictions");
+
+    private static final Logger LOGGER = getLogger(LDPathResultCache.class);
+
+    private final Cache<Key, byte[]> results;
+
+    /**
+     * Create a cache holding at most {@link #DEFAULT_MAXIMUM_WEIGHT} bytes of results
+     */
+    public LDPathResultCache() {
+        this(DEFAULT_MAXIMUM_WEIGHT);
+    }
+
+    /**
+     * Create a cache holding at most the given weight of results
+     * @param maximumWeight the most bytes of results, with their overhead, to keep
+     */
+    public LDPathResultCache(final long maximumWeight) {
+        this.results = CacheBuilder.newBuilder()
+                .maximumWeight(maximumWeight)
+                .<Key, byte[]>weigher((key, result) -> ENTRY_OVERHEAD + key.path.length() + result.length)
+                .removalListener(notification -> {
+                    if (notification.wasEvicted()) {
+                        EVICTIONS.inc();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Get the serialized results of a program for a resource, evaluating them if needed
+     * @param resource the resource
+     * @param contexts the contexts the triples of the resource are read from
+     * @param programDigest the digest of the program
+     * @param evaluate prepares the evaluation of the program against the resource
+     * @return the serialized results
+     */
+    public byte[] getResult(final FedoraResource resource, final Set<RequiredRdfContext> contexts,
+            final URI programDigest, final Supplier<LDPathResult> evaluate) {
+        return getResult(resource.getPath(), resource.getEtagValue(), contexts, programDigest, evaluate);
+    }
+
+    /**
+     * Get the serialized results of a program for a version of a resource, evaluating them if
+     * they are not cached, without reading the resource itself
+     * @param path the path of the resource
+     * @param etagValue the etag of the version of the resource
+     * @param contexts the contexts the triples of the resource are read from
+     * @param programDigest the digest of the program
+     * @param evaluate prepares the evaluation of the program against the resource
+     * @return the serialized results
+     */
+    public byte[] getResult(final String path, final String etagValue, final Set<RequiredRdfContext> contexts,
+            final URI programDigest, final Supplier<LDPathResult> evaluate) {
+        final Key key = new Key(path, etagValue, contexts, programDigest);
+
+        final byte[] cached = results.getIfPresent(key);
+        if (cached != null) {
+            HITS.inc();
+            return cached;
+        }
+
+        MISSES.inc();
+        LOGGER.debug("Evaluating LDPath program {} for {}", programDigest, key.path);
+        final byte[] result = LDPathResultProvider.serialize(evaluate.get());
+        results.put(key, result);
+        return result;
+    }
+
+    /**
+     * Drop all results
+     */
+    public void invalidateAll() {
+        results.invalidateAll();
+    }
+
+    /**
+     * @return the number of results held
+     */
+    public long size() {
+        return results.size();
+    }
+
+    private static class Key {
+
+        private final String path;
+
+        private final String etag;
+
+        private final Set<RequiredRdfContext> contexts;
+
+        private final URI programDigest;
+
+        Key(final String path, final String etag, final Set<RequiredRdfContext> contexts, final URI programDigest) {
+            this.path = path;
+            this.etag = etag;
+            this.contexts = Sets.immutableEnumSet(contexts);
+            this.programDigest = programDigest;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) other;
+            return path.equals(key.path) && Objects.equals(etag, key.etag) && contexts.equals(key.contexts)
+                    && programDigest.equals(key.programDigest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, etag, contexts, programDigest);
+        }
+    }
+}
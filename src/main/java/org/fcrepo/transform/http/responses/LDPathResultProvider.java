@@ -0,0 +1,187 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.http.responses;
+
+import static com.fasterxml.jackson.core.JsonEncoding.UTF8;
+import static com.fasterxml.jackson.core.JsonGenerator.Feature.AUTO_CLOSE_TARGET;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static org.fcrepo.transform.http.responses.JsonObjectProvider.createDefaultMapper;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.marmotta.ldpath.model.fields.FieldMapping;
+import org.apache.marmotta.ldpath.model.programs.Program;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.transform.TransformMetrics;
+import org.fcrepo.transform.transformations.LDPathResult;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.CountingOutputStream;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * Writes the fields of an evaluated LDPath program straight to a JSON generator, in the same
+ * shape as the list of field maps produced by
+ * {@link org.fcrepo.transform.transformations.LDPathTransform#apply}. The field names of
+ * each compiled program are encoded once and reused for every resource it is evaluated
+ * against.
+ *
+ * @author agent
+ */
+@Provider
+@Component
+@Produces({APPLICATION_JSON})
+public class LDPathResultProvider implements MessageBodyWriter<LDPathResult> {
+
+    private static final Logger LOGGER = getLogger(LDPathResultProvider.class);
+
+    static final JsonFactory JSON_FACTORY = createDefaultMapper().getFactory();
+
+    private static final Cache<Program<RDFNode>, Map<SerializedString, FieldMapping<?, RDFNode>>> FIELDS =
+            CacheBuilder.newBuilder().weakKeys().build();
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType,
+            final Annotation[] annotations, final MediaType mediaType) {
+        return LDPathResult.class.isAssignableFrom(type) && mediaType.isCompatible(MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    @Override
+    public long getSize(final LDPathResult result, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType) {
+        // we don't know in advance how large the result might be
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final LDPathResult result, final Class<?> type,
+            final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream) throws IOException {
+
+        LOGGER.debug("Writing LDPath results for: {}", result.getContext());
+
+        final CountingOutputStream counted = new CountingOutputStream(entityStream);
+        try (final Timer.Context timing = TransformMetrics.timer(LDPathResultProvider.class, "serialization").time();
+                final JsonGenerator generator = JSON_FACTORY.createGenerator(counted, UTF8)) {
+            generator.disable(AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            writeFields(generator, result);
+            generator.writeEndArray();
+        }
+        TransformMetrics.histogram(LDPathResultProvider.class, "resultSize").update(counted.getCount());
+    }
+
+    /**
+     * Evaluate an LDPath program and serialize its results, as they would be written in a response
+     * @param result the evaluation of the program
+     * @return the JSON serialization of the results
+     */
+    public static byte[] serialize(final LDPathResult result) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final JsonGenerator generator = JSON_FACTORY.createGenerator(out, UTF8)) {
+            generator.writeStartArray();
+            writeFields(generator, result);
+            generator.writeEndArray();
+        } catch (final IOException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Write the fields of an LDPath program as a JSON object, evaluating the program first if it
+     * has not been
+     * @param generator the generator to write to
+     * @param result the evaluation of the program
+     * @throws IOException if the fields could not be written
+     */
+    static void writeFields(final JsonGenerator generator, final LDPathResult result) throws IOException {
+        generator.writeStartObject();
+        for (final Map.Entry<SerializedString, FieldMapping<?, RDFNode>> field :
+                getFields(result.getProgram()).entrySet()) {
+            generator.writeFieldName(field.getKey());
+            generator.writeStartArray();
+            final Collection<?> values = result.getValues(field.getValue());
+            for (final Object value : values) {
+                writeValue(generator, value);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Get the fields of a program by their encoded names. As with Program#execute, where two
+     * fields share a name, the later one wins.
+     */
+    private static Map<SerializedString, FieldMapping<?, RDFNode>> getFields(final Program<RDFNode> program) {
+        try {
+            return FIELDS.get(program, () -> {
+                final Map<String, FieldMapping<?, RDFNode>> byName = new LinkedHashMap<>();
+                for (final FieldMapping<?, RDFNode> field : program.getFields()) {
+                    byName.put(field.getFieldName(), field);
+                }
+                final Map<SerializedString, FieldMapping<?, RDFNode>> fields = new LinkedHashMap<>();
+                byName.forEach((name, field) -> fields.put(new SerializedString(name), field));
+                return fields;
+            });
+        } catch (final ExecutionException e) {
+            throw new RepositoryRuntimeException(e.getCause());
+        }
+    }
+
+    private static void writeValue(final JsonGenerator generator, final Object value) throws IOException {
+        if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            // dates and anything less common are left to the configured mapper
+            generator.writeObject(value);
+        }
+    }
+}
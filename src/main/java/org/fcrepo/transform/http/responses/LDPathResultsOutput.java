@@ -0,0 +1,68 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.http.responses;
+
+import static com.fasterxml.jackson.core.JsonEncoding.UTF8;
+import static com.fasterxml.jackson.core.JsonGenerator.Feature.AUTO_CLOSE_TARGET;
+import static org.fcrepo.transform.http.responses.LDPathResultProvider.JSON_FACTORY;
+import static org.fcrepo.transform.http.responses.LDPathResultProvider.writeFields;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.fcrepo.transform.transformations.LDPathResult;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes the results of several LDPath programs for the same resource as one JSON object,
+ * keyed by program. Each value has the shape of the response for that program alone. The
+ * programs are evaluated before they are given to the output, so that one that overruns its
+ * budget fails the request before anything is written.
+ *
+ * @author agent
+ */
+public class LDPathResultsOutput implements StreamingOutput {
+
+    private final Map<String, LDPathResult> results;
+
+    /**
+     * @param results the evaluations of the programs, by program, in the order to write them
+     */
+    public LDPathResultsOutput(final Map<String, LDPathResult> results) {
+        this.results = results;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+        try (final JsonGenerator generator = JSON_FACTORY.createGenerator(output, UTF8)) {
+            generator.disable(AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            for (final Map.Entry<String, LDPathResult> result : results.entrySet()) {
+                generator.writeFieldName(result.getKey());
+                generator.writeStartArray();
+                writeFields(generator, result.getValue());
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+    }
+}
@@ -17,25 +17,49 @@
  */
 package org.fcrepo.transform.http.responses;
 
+import static com.google.common.base.Throwables.getCausalChain;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
 import static com.hp.hpl.jena.sparql.resultset.ResultsFormat.FMT_UNKNOWN;
 import static java.util.Collections.singletonList;
+import static javax.ws.rs.core.Response.Status.NOT_ACCEPTABLE;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+import static org.apache.jena.riot.RDFLanguages.contentTypeToLang;
+import static org.apache.jena.riot.system.StreamRDFWriter.getWriterStream;
 import static org.fcrepo.transform.http.responses.ResultSetStreamingOutput.getResultsFormat;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.fcrepo.transform.TransformMetrics;
+import org.fcrepo.transform.transformations.SparqlExecutionLimits;
 import org.slf4j.Logger;
 import org.springframework.stereotype.Component;
 
+import com.codahale.metrics.Timer;
+import com.google.common.io.CountingOutputStream;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.query.Query;
+import com.hp.hpl.jena.query.QueryCancelledException;
 import com.hp.hpl.jena.query.QueryExecution;
 import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.query.ResultSetFactory;
+import com.hp.hpl.jena.rdf.model.Model;
 
 /**
  * Helper for writing QueryExecutions results out in a variety
@@ -49,6 +73,13 @@ public class QueryExecutionProvider implements MessageBodyWriter<QueryExecution>
 
     private static final Logger LOGGER = getLogger(QueryExecutionProvider.class);
 
+    /**
+     * The header noting that results were left out, under the server-wide or requested maxRows
+     */
+    public static final String WARNING = "Warning";
+
+    static final String TRUNCATED_WARNING = "199 - \"Results truncated to %d rows\"";
+
     private static final ResultSetStreamingOutput resultSetStreamingOutput = new ResultSetStreamingOutput();
 
     @Override
@@ -64,14 +95,124 @@ public class QueryExecutionProvider implements MessageBodyWriter<QueryExecution>
         // add standard headers
         httpHeaders.put("Content-type", singletonList(mediaType.toString()));
 
-        try {
-            final ResultSet resultSet = qexec.execSelect();
-
-            resultSetStreamingOutput.writeTo(resultSet, type, genericType,
-                    annotations, mediaType, httpHeaders, entityStream);
+        final String tag = TransformMetrics.tag(mediaType);
+        final long maxRows = SparqlExecutionLimits.maxRowsOf(qexec);
+        final CountingOutputStream counted = new CountingOutputStream(entityStream);
+        try (final Timer.Context timing = TransformMetrics.timer(QueryExecutionProvider.class, "write", tag).time()) {
+            final Query query = qexec.getQuery();
+            if (query != null && (query.isConstructType() || query.isDescribeType())) {
+                writeGraph(qexec, query, mediaType, httpHeaders, counted, maxRows);
+            } else {
+                writeResults(qexec, query, mediaType, httpHeaders, counted, maxRows);
+            }
+        } catch (final QueryCancelledException e) {
+            TransformMetrics.counter(QueryExecutionProvider.class, "timedOut").inc();
+            if (counted.getCount() > 0) {
+                // the status has been sent, so let the container drop the connection rather than end the
+                // response as though it were whole
+                LOGGER.warn("SPARQL query timed out after {} ms, {} bytes into its response",
+                        qexec.getTimeout2(), counted.getCount());
+                throw e;
+            }
+            LOGGER.warn("SPARQL query timed out after {} ms", qexec.getTimeout2());
+            throw new WebApplicationException("SPARQL query timed out", e, SERVICE_UNAVAILABLE);
+        } catch (final RuntimeException e) {
+            if (isDisconnect(e)) {
+                // stop the query rather than finish it for a client that has gone away
+                TransformMetrics.counter(QueryExecutionProvider.class, "aborted").inc();
+                qexec.abort();
+            }
+            throw e;
         } finally {
             qexec.close();
         }
+        TransformMetrics.histogram(QueryExecutionProvider.class, "resultSize", tag).update(counted.getCount());
+    }
+
+    /**
+     * @return whether a failure came from writing to the client, which Jena reports wrapped in
+     *         unchecked exceptions of its own
+     */
+    private static boolean isDisconnect(final RuntimeException e) {
+        return getCausalChain(e).stream().anyMatch(IOException.class::isInstance);
+    }
+
+    /**
+     * Write the solutions of a SELECT or ASK query. Where the rows are limited, they are all
+     * collected before anything is written, so that a timeout can still be answered with a status
+     * and any truncation with a header; otherwise the first solution is found before writing begins.
+     */
+    private static void writeResults(final QueryExecution qexec, final Query query, final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders, final OutputStream entityStream, final long maxRows) {
+        final ResultSet resultSet;
+        if (maxRows > 0) {
+            final TruncatedResultSet limited = new TruncatedResultSet(qexec.execSelect(), maxRows);
+            resultSet = ResultSetFactory.copyResults(limited);
+            if (limited.isTruncated()) {
+                markTruncated(httpHeaders, maxRows);
+            }
+        } else {
+            resultSet = qexec.execSelect();
+            resultSet.hasNext();
+        }
+        resultSetStreamingOutput.writeTo(resultSet, mediaType, entityStream, query != null && query.isOrdered());
+    }
+
+    /**
+     * Write the graph produced by a CONSTRUCT or DESCRIBE query. Where the triples are limited,
+     * they are all collected before anything is written, as for {@link #writeResults}. Otherwise,
+     * where Jena has a streaming writer for the requested language, triples are written as they are
+     * produced once the first is found; failing that, the graph is collected into a model first.
+     */
+    private static void writeGraph(final QueryExecution qexec, final Query query, final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders, final OutputStream entityStream, final long maxRows) {
+        final Lang lang = contentTypeToLang(mediaType.toString());
+        if (lang == null) {
+            // a graph cannot be written as a table of results
+            throw new WebApplicationException(NOT_ACCEPTABLE);
+        }
+
+        if (maxRows > 0 || StreamRDFWriter.registered(lang)) {
+            Iterator<Triple> triples =
+                    query.isConstructType() ? qexec.execConstructTriples() : qexec.execDescribeTriples();
+            if (maxRows > 0) {
+                final List<Triple> limited = new ArrayList<>();
+                while (triples.hasNext() && limited.size() < maxRows) {
+                    limited.add(triples.next());
+                }
+                if (triples.hasNext()) {
+                    markTruncated(httpHeaders, maxRows);
+                }
+                triples = limited.iterator();
+            } else {
+                triples.hasNext();
+            }
+
+            if (StreamRDFWriter.registered(lang)) {
+                final StreamRDF stream = getWriterStream(entityStream, lang);
+                stream.start();
+                query.getPrefixMapping().getNsPrefixMap().forEach(stream::prefix);
+                triples.forEachRemaining(stream::triple);
+                stream.finish();
+            } else {
+                final Model model = createDefaultModel();
+                model.setNsPrefixes(query.getPrefixMapping());
+                triples.forEachRemaining(triple -> model.getGraph().add(triple));
+                RDFDataMgr.write(entityStream, model, lang);
+            }
+            return;
+        }
+        final Model model = query.isConstructType() ? qexec.execConstruct() : qexec.execDescribe();
+        RDFDataMgr.write(entityStream, model, lang);
+    }
+
+    /**
+     * Note on the response that results were left out
+     */
+    private static void markTruncated(final MultivaluedMap<String, Object> httpHeaders, final long maxRows) {
+        TransformMetrics.counter(QueryExecutionProvider.class, "truncated").inc();
+        LOGGER.debug("Truncated SPARQL results to {} rows", maxRows);
+        httpHeaders.add(WARNING, String.format(TRUNCATED_WARNING, maxRows));
     }
 
     @Override
@@ -80,7 +221,7 @@ public class QueryExecutionProvider implements MessageBodyWriter<QueryExecution>
 
         // we can return a result for any MIME type that Jena can serialize
         final Boolean appropriateResultType =
-            getResultsFormat(mediaType) != FMT_UNKNOWN;
+            getResultsFormat(mediaType) != FMT_UNKNOWN || contentTypeToLang(mediaType.toString()) != null;
         return appropriateResultType
                 && (QueryExecution.class.isAssignableFrom(type) || QueryExecution.class
                         .isAssignableFrom(genericType.getClass()));
@@ -17,8 +17,13 @@
  */
 package org.fcrepo.transform.http.responses;
 
+import static com.hp.hpl.jena.datatypes.xsd.XSDDatatype.XSDint;
+import static com.hp.hpl.jena.datatypes.xsd.XSDDatatype.XSDinteger;
+import static com.hp.hpl.jena.graph.NodeFactory.createAnon;
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.Triple.create;
 import static com.hp.hpl.jena.query.ResultSetFormatter.output;
-import static com.hp.hpl.jena.query.ResultSetFormatter.toModel;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
 import static com.hp.hpl.jena.sparql.resultset.ResultsFormat.FMT_RDF_NT;
 import static com.hp.hpl.jena.sparql.resultset.ResultsFormat.FMT_RDF_TTL;
 import static com.hp.hpl.jena.sparql.resultset.ResultsFormat.FMT_RDF_XML;
@@ -39,10 +44,13 @@ import static org.apache.jena.riot.WebContent.contentTypeTextTSV;
 import static org.apache.jena.riot.WebContent.contentTypeTurtle;
 import static org.apache.jena.riot.WebContent.contentTypeTurtleAlt1;
 import static org.apache.jena.riot.WebContent.contentTypeTurtleAlt2;
+import static org.apache.jena.riot.system.StreamRDFWriter.getWriterStream;
 
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
@@ -51,10 +59,22 @@ import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
 import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.fcrepo.transform.TransformMetrics;
 
+import com.codahale.metrics.Timer;
+import com.hp.hpl.jena.graph.Node;
 import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.query.ResultSetFormatter;
 import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.sparql.core.Var;
+import com.hp.hpl.jena.sparql.engine.binding.Binding;
+import com.hp.hpl.jena.sparql.resultset.RDFOutput;
 import com.hp.hpl.jena.sparql.resultset.ResultsFormat;
+import com.hp.hpl.jena.sparql.vocabulary.ResultSetGraphVocab;
+import com.hp.hpl.jena.vocabulary.RDF;
+import com.hp.hpl.jena.vocabulary.XSD;
 
 /**
  * Stream the results of a SPARQL Query
@@ -101,15 +121,118 @@ public class ResultSetStreamingOutput implements MessageBodyWriter<ResultSet> {
                         final MediaType mediaType,
                         final MultivaluedMap<String, Object> httpHeaders,
                         final OutputStream entityStream) {
+        writeTo(resultSet, mediaType, entityStream, false);
+    }
+
+    /**
+     * Write a result set, numbering its solutions when it is written as RDF and the order of
+     * the solutions matters
+     * @param resultSet the result set
+     * @param mediaType the media type to write it as
+     * @param entityStream the stream to write to
+     * @param ordered whether the solutions are ordered, as by ORDER BY
+     */
+    void writeTo(final ResultSet resultSet, final MediaType mediaType, final OutputStream entityStream,
+            final boolean ordered) {
         final ResultsFormat resultsFormat = getResultsFormat(mediaType);
+        final Lang lang = getLang(resultsFormat, mediaType);
+        final String tag = TransformMetrics.tag(mediaType);
 
-        if (resultsFormat == FMT_UNKNOWN) {
-            final String format = contentTypeToLang(mediaType.toString()).getName().toUpperCase();
-            final Model model = toModel(resultSet);
-            model.write(entityStream, format);
-        } else {
-            output(entityStream, resultSet, resultsFormat);
+        try (final Timer.Context timing =
+                TransformMetrics.timer(ResultSetStreamingOutput.class, "serialization", tag).time()) {
+            if (lang != null && StreamRDFWriter.registered(lang)) {
+                writeResults(resultSet, getWriterStream(entityStream, lang), ordered);
+            } else if (resultsFormat == FMT_UNKNOWN || ordered && lang != null) {
+                final Model model = toModel(resultSet, ordered);
+                model.write(entityStream, lang.getName().toUpperCase());
+            } else {
+                output(entityStream, resultSet, resultsFormat);
+            }
+        }
+        TransformMetrics.histogram(ResultSetStreamingOutput.class, "rows", tag).update(resultSet.getRowNumber());
+    }
+
+    /**
+     * Collect a result set into a graph in the result set vocabulary
+     * @param resultSet the result set
+     * @param ordered whether to number the solutions with rs:index
+     * @return the graph
+     */
+    private static Model toModel(final ResultSet resultSet, final boolean ordered) {
+        if (!ordered) {
+            return ResultSetFormatter.toModel(resultSet);
+        }
+        final Model model = createDefaultModel();
+        new RDFOutput().asRDF(model, resultSet, true);
+        return model;
+    }
+
+    /**
+     * Write a result set as triples in the result set vocabulary, one solution at a time, to give
+     * the same graph as {@link RDFOutput#asRDF(Model, ResultSet, boolean)} without ever holding
+     * more than a single solution. Ordered solutions are numbered with rs:index, as the order
+     * of the triples of a graph carries no meaning.
+     * @param resultSet the result set
+     * @param stream the stream to write to
+     * @param ordered whether to number the solutions
+     */
+    static void writeResults(final ResultSet resultSet, final StreamRDF stream, final boolean ordered) {
+        stream.start();
+        stream.prefix("rs", ResultSetGraphVocab.getURI());
+        stream.prefix("rdf", RDF.getURI());
+        stream.prefix("xsd", XSD.getURI());
+
+        final Node results = createAnon();
+        stream.triple(create(results, RDF.type.asNode(), ResultSetGraphVocab.ResultSet.asNode()));
+
+        final List<Var> vars = new ArrayList<>();
+        for (final String name : resultSet.getResultVars()) {
+            stream.triple(create(results, ResultSetGraphVocab.resultVariable.asNode(), createLiteral(name)));
+            vars.add(Var.alloc(name));
+        }
+
+        int count = 0;
+        while (resultSet.hasNext()) {
+            count++;
+            final Binding binding = resultSet.nextBinding();
+            final Node solution = createAnon();
+            stream.triple(create(results, ResultSetGraphVocab.solution.asNode(), solution));
+            if (ordered) {
+                stream.triple(create(solution, ResultSetGraphVocab.index.asNode(),
+                        createLiteral(Integer.toString(count), XSDinteger)));
+            }
+            for (final Var var : vars) {
+                final Node value = binding.get(var);
+                if (value != null) {
+                    final Node bound = createAnon();
+                    stream.triple(create(solution, ResultSetGraphVocab.binding.asNode(), bound));
+                    stream.triple(create(bound, ResultSetGraphVocab.variable.asNode(),
+                            createLiteral(var.getVarName())));
+                    stream.triple(create(bound, ResultSetGraphVocab.value.asNode(), value));
+                }
+            }
+        }
+
+        stream.triple(create(results, ResultSetGraphVocab.size.asNode(),
+                createLiteral(Integer.toString(count), XSDint)));
+        stream.finish();
+    }
+
+    /**
+     * @return the RDF language results in the given format are to be written in, or null if they
+     *         are not to be written as RDF
+     */
+    private static Lang getLang(final ResultsFormat resultsFormat, final MediaType mediaType) {
+        if (resultsFormat == FMT_RDF_TTL) {
+            return Lang.TURTLE;
+        } else if (resultsFormat == FMT_RDF_NT) {
+            return Lang.NTRIPLES;
+        } else if (resultsFormat == FMT_RDF_XML) {
+            return Lang.RDFXML;
+        } else if (resultsFormat == FMT_UNKNOWN) {
+            return contentTypeToLang(mediaType.toString());
         }
+        return null;
     }
 
     /**
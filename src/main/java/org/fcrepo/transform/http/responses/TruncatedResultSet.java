@@ -0,0 +1,106 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.http.responses;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.hp.hpl.jena.query.QuerySolution;
+import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.sparql.engine.binding.Binding;
+
+/**
+ * A result set that ends after a given number of solutions, noting whether any were left out.
+ *
+ * @author agent
+ */
+class TruncatedResultSet implements ResultSet {
+
+    private final ResultSet results;
+
+    private final long maxRows;
+
+    private boolean truncated;
+
+    /**
+     * @param results the results
+     * @param maxRows the most solutions to give
+     */
+    TruncatedResultSet(final ResultSet results, final long maxRows) {
+        this.results = results;
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (results.getRowNumber() < maxRows) {
+            return results.hasNext();
+        }
+        truncated = truncated || results.hasNext();
+        return false;
+    }
+
+    @Override
+    public QuerySolution next() {
+        return nextSolution();
+    }
+
+    @Override
+    public QuerySolution nextSolution() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return results.nextSolution();
+    }
+
+    @Override
+    public Binding nextBinding() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return results.nextBinding();
+    }
+
+    @Override
+    public int getRowNumber() {
+        return results.getRowNumber();
+    }
+
+    @Override
+    public List<String> getResultVars() {
+        return results.getResultVars();
+    }
+
+    @Override
+    public Model getResourceModel() {
+        return results.getResourceModel();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return whether any solutions were left out
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import java.util.Collection;
+
+import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+import org.fcrepo.transform.LDPathBudgetExceededException;
+import org.fcrepo.transform.TransformMetrics;
+import org.fcrepo.transform.backend.BudgetedBackend;
+
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * The budget each evaluation of an LDPath program is held to: how long it may take, how many
+ * nodes it may visit, and how many values any one field may have. Recursive path expressions
+ * may otherwise walk a graph for as long as it takes, and gather as many values as it holds.
+ * The server-wide budget is set by the {@value #TIMEOUT_PROPERTY}, {@value #MAX_VISITS_PROPERTY}
+ * and {@value #MAX_VALUES_PROPERTY} system properties, and may be overridden for the programs of
+ * one transform key by the same properties suffixed with the key, e.g.
+ * {@code fcrepo.transform.ldpath.timeout.deluxe}. A limit of zero means none.
+ *
+ * @author agent
+ */
+public final class LDPathBudget {
+
+    public static final String TIMEOUT_PROPERTY = "fcrepo.transform.ldpath.timeout";
+
+    public static final String MAX_VISITS_PROPERTY = "fcrepo.transform.ldpath.maxVisits";
+
+    public static final String MAX_VALUES_PROPERTY = "fcrepo.transform.ldpath.maxValues";
+
+    /**
+     * The default time an evaluation may take, in ms
+     */
+    public static final long DEFAULT_TIMEOUT = 10000;
+
+    /**
+     * The default number of nodes an evaluation may visit
+     */
+    public static final long DEFAULT_MAX_VISITS = 1000000;
+
+    /**
+     * The default number of values a field may have
+     */
+    public static final int DEFAULT_MAX_VALUES = 10000;
+
+    /**
+     * A budget without limits
+     */
+    public static final LDPathBudget UNLIMITED = new LDPathBudget(0, 0, 0);
+
+    private final long timeout;
+
+    private final long maxVisits;
+
+    private final int maxValues;
+
+    /**
+     * @param timeout the longest an evaluation may take, in ms
+     * @param maxVisits the most nodes an evaluation may visit
+     * @param maxValues the most values a field may have
+     */
+    public LDPathBudget(final long timeout, final long maxVisits, final int maxValues) {
+        this.timeout = Math.max(0, timeout);
+        this.maxVisits = Math.max(0, maxVisits);
+        this.maxValues = Math.max(0, maxValues);
+    }
+
+    /**
+     * @return the server-wide budget
+     */
+    public static LDPathBudget serverBudget() {
+        return new LDPathBudget(Long.getLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT),
+                Long.getLong(MAX_VISITS_PROPERTY, DEFAULT_MAX_VISITS),
+                Integer.getInteger(MAX_VALUES_PROPERTY, DEFAULT_MAX_VALUES));
+    }
+
+    /**
+     * @param key a transform key
+     * @return the budget of the programs of the transform key
+     */
+    public static LDPathBudget programBudget(final String key) {
+        final LDPathBudget server = serverBudget();
+        return new LDPathBudget(Long.getLong(TIMEOUT_PROPERTY + "." + key, server.timeout),
+                Long.getLong(MAX_VISITS_PROPERTY + "." + key, server.maxVisits),
+                Integer.getInteger(MAX_VALUES_PROPERTY + "." + key, server.maxValues));
+    }
+
+    /**
+     * Hold an evaluation against a backend to the time and node visits of this budget
+     * @param backend the backend
+     * @return a backend that fails the evaluation once the budget is spent
+     */
+    public RDFBackend<RDFNode> meter(final RDFBackend<RDFNode> backend) {
+        return timeout == 0 && maxVisits == 0 ? backend : new BudgetedBackend(backend, timeout, maxVisits);
+    }
+
+    /**
+     * Hold the values of a field to this budget
+     * @param field the name of the field
+     * @param values the values of the field
+     * @param <T> the type of the values
+     * @return the values
+     */
+    public <T extends Collection<?>> T checkValues(final String field, final T values) {
+        if (maxValues > 0 && values.size() > maxValues) {
+            TransformMetrics.counter(LDPathBudget.class, "exceeded", "values").inc();
+            throw new LDPathBudgetExceededException(String.format(
+                    "LDPath field %s has %d values, more than the limit of %d", field, values.size(), maxValues));
+        }
+        return values;
+    }
+
+    /**
+     * @return the longest an evaluation may take, in ms
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the most nodes an evaluation may visit
+     */
+    public long getMaxVisits() {
+        return maxVisits;
+    }
+
+    /**
+     * @return the most values a field may have
+     */
+    public int getMaxValues() {
+        return maxValues;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static com.google.common.hash.Hashing.sha1;
+import static org.apache.commons.io.IOUtils.toByteArray;
+import static org.fcrepo.kernel.api.utils.ContentDigest.asURI;
+import static org.fcrepo.kernel.api.utils.ContentDigest.getAlgorithm;
+import static org.fcrepo.kernel.api.utils.ContentDigest.missingChecksum;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.apache.marmotta.ldpath.model.programs.Program;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.fcrepo.transform.TransformMetrics;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * A bounded cache of compiled LDPath programs, keyed by the SHA-1 digest of the
+ * binary each program was read from. A program binary that changes gets a new
+ * digest, so its stale compilation is dropped the next time it is requested.
+ *
+ * @author agent
+ */
+public class LDPathProgramCache {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 256;
+
+    private static final String SHA1 = "SHA-1";
+
+    private static final Logger LOGGER = getLogger(LDPathProgramCache.class);
+
+    private static final Counter HITS = TransformMetrics.counter(LDPathProgramCache.class, "hits");
+
+    private static final Counter MISSES = TransformMetrics.counter(LDPathProgramCache.class, "misses");
+
+    private final Cache<URI, Program<RDFNode>> programs;
+
+    private final ConcurrentMap<String, URI> digestsByPath = new ConcurrentHashMap<>();
+
+    private final Cache<Program<RDFNode>, URI> digestsByProgram = CacheBuilder.newBuilder().weakKeys().build();
+
+    /**
+     * Create a cache holding at most {@link #DEFAULT_MAXIMUM_SIZE} programs
+     */
+    public LDPathProgramCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Create a cache holding at most the given number of programs
+     * @param maximumSize the maximum number of compiled programs to keep
+     */
+    public LDPathProgramCache(final long maximumSize) {
+        this.programs = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * Get the compiled program stored in the given binary, compiling it if needed
+     * @param binary the binary holding the LDPath program
+     * @return the compiled program
+     */
+    public Program<RDFNode> getProgram(final FedoraBinary binary) {
+        final URI storedDigest = binary.getContentDigest();
+
+        if (storedDigest != null && SHA1.equals(getAlgorithm(storedDigest))
+                && !storedDigest.equals(missingChecksum())) {
+            return getProgram(binary.getPath(), storedDigest, binary::getContent);
+        }
+
+        // without a usable stored checksum, we digest the program ourselves
+        try (final InputStream content = binary.getContent()) {
+            final byte[] program = toByteArray(content);
+            return getProgram(binary.getPath(), asURI(SHA1, sha1().hashBytes(program).asBytes()),
+                    () -> new ByteArrayInputStream(program));
+        } catch (final IOException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+    }
+
+    private Program<RDFNode> getProgram(final String path, final URI digest, final Supplier<InputStream> content) {
+        final URI previous = digestsByPath.put(path, digest);
+        if (previous != null && !previous.equals(digest)) {
+            LOGGER.debug("LDPath program at {} changed, dropping compiled program {}", path, previous);
+            programs.invalidate(previous);
+        }
+
+        final Program<RDFNode> cached = programs.getIfPresent(digest);
+        if (cached != null) {
+            HITS.inc();
+            return cached;
+        }
+
+        MISSES.inc();
+        try {
+            return programs.get(digest, () -> {
+                LOGGER.debug("Compiling LDPath program at {} with digest {}", path, digest);
+                try (final InputStream program = content.get()) {
+                    final Program<RDFNode> compiled = LDPathTransform.parseProgram(program);
+                    digestsByProgram.put(compiled, digest);
+                    return compiled;
+                }
+            });
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            throw new RepositoryRuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Get the digest of the binary a compiled program was read from
+     * @param program the compiled program
+     * @return the digest, or null if the program was not compiled by this cache
+     */
+    public URI getDigest(final Program<RDFNode> program) {
+        return digestsByProgram.getIfPresent(program);
+    }
+
+    /**
+     * Drop the compiled program for the binary at the given path
+     * @param path the path of the program binary
+     */
+    public void invalidate(final String path) {
+        final URI digest = digestsByPath.remove(path);
+        if (digest != null) {
+            programs.invalidate(digest);
+        }
+    }
+
+    /**
+     * Drop all compiled programs
+     */
+    public void invalidateAll() {
+        digestsByPath.clear();
+        programs.invalidateAll();
+    }
+
+    /**
+     * @return the number of compiled programs held
+     */
+    public long size() {
+        return programs.size();
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static org.fcrepo.transform.transformations.LDPathTransform.CONFIGURATION_FOLDER;
+import static org.fcrepo.transform.transformations.LDPathTransform.PROGRAM_CACHE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jcr.NamespaceRegistry;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.apache.marmotta.ldpath.model.programs.Program;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.kernel.api.services.NodeService;
+import org.fcrepo.transform.TransformNotFoundException;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * An in-memory index of the LDPath programs registered under each transform key, by the
+ * prefixed rdf:type each program is named for. A key is read from the repository the first
+ * time it is requested, and dropped again by {@link #invalidate(String)} when anything under
+ * its configuration folder changes.
+ *
+ * <p>The registered namespaces are indexed once as well, and dropped by {@link #invalidateNamespaces()}
+ * when the namespace registry changes.</p>
+ *
+ * <p>Types are compacted with the longest registered namespace they start with. Where registered
+ * namespaces nest, e.g. {@code http://example.org/} and {@code http://example.org/ns#}, this may
+ * name a type differently than the first match in registry order once did; the registry promises
+ * no order, so that choice was arbitrary.</p>
+ *
+ * @author agent
+ */
+@Component
+public class LDPathProgramIndex {
+
+    private static final Logger LOGGER = getLogger(LDPathProgramIndex.class);
+
+    private final ConcurrentMap<String, Map<String, IndexedProgram>> programsByKey = new ConcurrentHashMap<>();
+
+    // counts invalidations, so that programs read across one are not indexed
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong namespaceGeneration = new AtomicLong();
+
+    private volatile NamespacePrefixIndex namespaces;
+
+    /**
+     * Pull a resource-type specific transform for the specified key
+     * @param resource the resource
+     * @param session the session
+     * @param nodeService a nodeService
+     * @param key the key
+     * @return resource-type specific transform
+     * @throws RepositoryException if repository exception occurred
+     */
+    public LDPathTransform getResourceTransform(final FedoraResource resource, final Session session,
+            final NodeService nodeService, final String key) throws RepositoryException {
+
+        final Map<String, IndexedProgram> programs = getPrograms(session, nodeService, key);
+        final NamespacePrefixIndex index = getNamespaces(session.getWorkspace().getNamespaceRegistry());
+
+        // where a resource has several types with programs, the first program in the folder wins
+        IndexedProgram match = null;
+        for (final String type : LDPathTransform.getPrefixedTypes(resource, index)) {
+            final IndexedProgram candidate = programs.get(type);
+            if (candidate != null && (match == null || candidate.ordinal < match.ordinal)) {
+                match = candidate;
+            }
+        }
+
+        if (match == null) {
+            throw new TransformNotFoundException(String.format(
+                    "Couldn't find transformation for %s and transformation key %s", resource.getPath(), key));
+        }
+        return new LDPathTransform(match.program, LDPathBudget.programBudget(key));
+    }
+
+    /**
+     * Get the index of the registered namespaces, building it if it has been dropped since it was
+     * last built
+     */
+    private NamespacePrefixIndex getNamespaces(final NamespaceRegistry registry) throws RepositoryException {
+        NamespacePrefixIndex index = namespaces;
+        if (index == null) {
+            final long readGeneration = namespaceGeneration.get();
+            index = NamespacePrefixIndex.of(registry);
+            LOGGER.debug("Indexed {} namespaces", index.size());
+            synchronized (namespaceGeneration) {
+                if (namespaceGeneration.get() == readGeneration) {
+                    namespaces = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the indexed programs of a transform key, reading them from the repository if they are not
+     * indexed. They are read outside the index, so that one slow read holds up no other key.
+     */
+    private Map<String, IndexedProgram> getPrograms(final Session session, final NodeService nodeService,
+            final String key) {
+        final Map<String, IndexedProgram> indexed = programsByKey.get(key);
+        if (indexed != null) {
+            return indexed;
+        }
+
+        final long readGeneration = generation.get();
+        final Map<String, IndexedProgram> programs = readPrograms(session, nodeService, key);
+        synchronized (generation) {
+            if (generation.get() != readGeneration) {
+                // the configuration changed while it was read, so this copy may already be stale
+                return programs;
+            }
+            final Map<String, IndexedProgram> raced = programsByKey.putIfAbsent(key, programs);
+            return raced == null ? programs : raced;
+        }
+    }
+
+    private static Map<String, IndexedProgram> readPrograms(final Session session, final NodeService nodeService,
+            final String key) {
+        final FedoraResource transformResource = nodeService.find(session, CONFIGURATION_FOLDER + key);
+
+        LOGGER.debug("Indexing transform resource: {}", transformResource.getPath());
+
+        final String prefix = transformResource.getPath() + "/";
+        final Map<String, IndexedProgram> programs = new HashMap<>();
+        final Iterator<FedoraResource> children = transformResource.getChildren().iterator();
+        for (int ordinal = 0; children.hasNext(); ordinal++) {
+            final FedoraResource child = children.next();
+            if (child instanceof FedoraBinary && child.getPath().startsWith(prefix)) {
+                programs.putIfAbsent(child.getPath().substring(prefix.length()),
+                        new IndexedProgram(ordinal, PROGRAM_CACHE.getProgram((FedoraBinary) child)));
+            } else {
+                LOGGER.debug("Ignoring {}, which is not an LDPath program", child.getPath());
+            }
+        }
+        return programs;
+    }
+
+    /**
+     * Drop the indexed programs of a transform key
+     * @param key the transform key
+     */
+    public void invalidate(final String key) {
+        LOGGER.debug("Dropping indexed programs for transform key {}", key);
+        synchronized (generation) {
+            generation.incrementAndGet();
+            programsByKey.remove(key);
+        }
+    }
+
+    /**
+     * Drop the indexed programs of every transform key
+     */
+    public void invalidateAll() {
+        synchronized (generation) {
+            generation.incrementAndGet();
+            programsByKey.clear();
+        }
+    }
+
+    /**
+     * Drop the indexed namespaces, so that they are indexed again from the namespace registry
+     */
+    public void invalidateNamespaces() {
+        LOGGER.debug("Dropping indexed namespaces");
+        synchronized (namespaceGeneration) {
+            namespaceGeneration.incrementAndGet();
+            namespaces = null;
+        }
+    }
+
+    private static class IndexedProgram {
+
+        private final int ordinal;
+
+        private final Program<RDFNode> program;
+
+        IndexedProgram(final int ordinal, final Program<RDFNode> program) {
+            this.ordinal = ordinal;
+            this.program = program;
+        }
+    }
+}
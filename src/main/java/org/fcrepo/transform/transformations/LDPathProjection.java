@@ -0,0 +1,271 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.springframework.util.ReflectionUtils.findField;
+import static org.springframework.util.ReflectionUtils.getField;
+import static org.springframework.util.ReflectionUtils.makeAccessible;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
+import org.apache.marmotta.ldpath.api.tests.NodeTest;
+import org.apache.marmotta.ldpath.model.fields.FieldMapping;
+import org.apache.marmotta.ldpath.model.functions.ConcatenateFunction;
+import org.apache.marmotta.ldpath.model.functions.CountFunction;
+import org.apache.marmotta.ldpath.model.functions.FirstFunction;
+import org.apache.marmotta.ldpath.model.functions.LastFunction;
+import org.apache.marmotta.ldpath.model.functions.SortFunction;
+import org.apache.marmotta.ldpath.model.programs.Program;
+import org.apache.marmotta.ldpath.model.selectors.FunctionSelector;
+import org.apache.marmotta.ldpath.model.selectors.GroupedSelector;
+import org.apache.marmotta.ldpath.model.selectors.IntersectionSelector;
+import org.apache.marmotta.ldpath.model.selectors.PathSelector;
+import org.apache.marmotta.ldpath.model.selectors.PropertySelector;
+import org.apache.marmotta.ldpath.model.selectors.RecursivePathSelector;
+import org.apache.marmotta.ldpath.model.selectors.ReversePropertySelector;
+import org.apache.marmotta.ldpath.model.selectors.SelfSelector;
+import org.apache.marmotta.ldpath.model.selectors.StringConstantSelector;
+import org.apache.marmotta.ldpath.model.selectors.TestingSelector;
+import org.apache.marmotta.ldpath.model.selectors.UnionSelector;
+import org.apache.marmotta.ldpath.model.selectors.WildcardSelector;
+import org.apache.marmotta.ldpath.model.tests.AndTest;
+import org.apache.marmotta.ldpath.model.tests.FunctionTest;
+import org.apache.marmotta.ldpath.model.tests.LiteralLanguageTest;
+import org.apache.marmotta.ldpath.model.tests.LiteralTypeTest;
+import org.apache.marmotta.ldpath.model.tests.NotTest;
+import org.apache.marmotta.ldpath.model.tests.OrTest;
+import org.apache.marmotta.ldpath.model.tests.PathEqualityTest;
+import org.apache.marmotta.ldpath.model.tests.PathTest;
+import org.apache.marmotta.ldpath.model.tests.functions.BinaryNumericTest;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.slf4j.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * Works out which predicates an LDPath program can possibly traverse, so that only triples
+ * with those predicates need be retrieved for it. The analysis walks the selectors of the
+ * program's fields, filter and booster. Anything it cannot bound, such as a wildcard step
+ * or a function outside the LDPath core, leaves the program unprojected.
+ *
+ * <p>The selectors of LDPath 3.2 expose none of their parts, so the walk reads their fields,
+ * as listed in {@link #PARTS}. A selector or test whose parts cannot be read is treated as
+ * unbounded; should a newer LDPath rename any of them, that is logged as an error when this
+ * class loads, rather than only showing up as programs that are no longer projected.</p>
+ *
+ * @author agent
+ */
+public final class LDPathProjection {
+
+    /**
+     * The core LDPath functions, none of which read triples beyond their arguments
+     */
+    private static final Set<Class<?>> CORE_FUNCTIONS = ImmutableSet.of(ConcatenateFunction.class,
+            CountFunction.class, FirstFunction.class, LastFunction.class, SortFunction.class);
+
+    private static final Logger LOGGER = getLogger(LDPathProjection.class);
+
+    /**
+     * The fields read from each kind of selector and test
+     */
+    static final SetMultimap<Class<?>, String> PARTS = ImmutableSetMultimap.<Class<?>, String>builder()
+            .putAll(PropertySelector.class, "property")
+            .putAll(ReversePropertySelector.class, "property")
+            .putAll(PathSelector.class, "left", "right")
+            .putAll(UnionSelector.class, "left", "right")
+            .putAll(IntersectionSelector.class, "left", "right")
+            .putAll(GroupedSelector.class, "content")
+            .putAll(RecursivePathSelector.class, "delegate")
+            .putAll(TestingSelector.class, "delegate", "test")
+            .putAll(FunctionSelector.class, "function", "selectors")
+            .putAll(PathEqualityTest.class, "path")
+            .putAll(PathTest.class, "path")
+            .putAll(NotTest.class, "delegate")
+            .putAll(AndTest.class, "left", "right")
+            .putAll(OrTest.class, "left", "right")
+            .putAll(FunctionTest.class, "test", "argSelectors")
+            .build();
+
+    static {
+        final List<String> missing = missingParts();
+        if (!missing.isEmpty()) {
+            LOGGER.error("LDPath no longer has {}, so programs using them will not be projected", missing);
+        }
+    }
+
+    private static final Cache<Program<RDFNode>, Optional<Set<Node>>> PROJECTIONS =
+            CacheBuilder.newBuilder().weakKeys().build();
+
+    private LDPathProjection() {
+    }
+
+    /**
+     * Get the predicates a compiled program may traverse
+     * @param program the compiled program
+     * @return the predicates, or empty if the program may traverse any predicate
+     */
+    public static Optional<Set<Node>> requiredPredicates(final Program<RDFNode> program) {
+        try {
+            return PROJECTIONS.get(program, () -> {
+                final Optional<Set<Node>> predicates = predicatesOf(program);
+                LOGGER.debug("LDPath program projects onto predicates {}", predicates);
+                return predicates;
+            });
+        } catch (final ExecutionException e) {
+            throw new RepositoryRuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Collect the predicates named in the selectors of a program
+     * @param program the compiled program
+     * @return the predicates, or empty if the program may traverse any predicate
+     */
+    static Optional<Set<Node>> predicatesOf(final Program<RDFNode> program) {
+        final ImmutableSet.Builder<Node> predicates = ImmutableSet.builder();
+        final boolean[] wildcard = new boolean[1];
+        final boolean bounded = scan(program, predicate -> {
+            if (predicate == Node.ANY) {
+                wildcard[0] = true;
+            } else {
+                predicates.add(predicate);
+            }
+        });
+        return bounded && !wildcard[0] ? Optional.of(predicates.build()) : Optional.empty();
+    }
+
+    /**
+     * Report each property step of the fields, filter and booster of a program, in order, and
+     * {@link Node#ANY} for each wildcard step
+     * @param program the compiled program
+     * @param steps receives the properties
+     * @return false if the program may read triples that are not reported
+     */
+    private static boolean scan(final Program<RDFNode> program, final Consumer<Node> steps) {
+        for (final FieldMapping<?, RDFNode> field : program.getFields()) {
+            if (!scanSelector(field.getSelector(), steps)) {
+                return false;
+            }
+        }
+        return (program.getFilter() == null || scanTest(program.getFilter(), steps))
+                && (program.getBooster() == null || scanSelector(program.getBooster().getSelector(), steps));
+    }
+
+    /**
+     * Report each property step of a selector
+     * @return false if the selector may read triples that are not reported
+     */
+    private static boolean scanSelector(final NodeSelector<RDFNode> selector, final Consumer<Node> steps) {
+        if (selector instanceof WildcardSelector) {
+            steps.accept(Node.ANY);
+            return true;
+        } else if (selector instanceof PropertySelector || selector instanceof ReversePropertySelector) {
+            final RDFNode property = part(selector, "property");
+            if (property == null) {
+                return false;
+            }
+            steps.accept(property.asNode());
+            return true;
+        } else if (selector instanceof PathSelector || selector instanceof UnionSelector
+                || selector instanceof IntersectionSelector) {
+            return scanSelector(part(selector, "left"), steps) && scanSelector(part(selector, "right"), steps);
+        } else if (selector instanceof GroupedSelector) {
+            return scanSelector(part(selector, "content"), steps);
+        } else if (selector instanceof RecursivePathSelector) {
+            return scanSelector(part(selector, "delegate"), steps);
+        } else if (selector instanceof TestingSelector) {
+            return scanSelector(part(selector, "delegate"), steps) && scanTest(part(selector, "test"), steps);
+        } else if (selector instanceof FunctionSelector) {
+            final Object function = part(selector, "function");
+            return function != null && CORE_FUNCTIONS.contains(function.getClass())
+                    && scanAll(part(selector, "selectors"), steps);
+        }
+        return selector instanceof SelfSelector || selector instanceof StringConstantSelector;
+    }
+
+    /**
+     * Report each property step of the paths a test reads
+     * @return false if the test may read triples that are not reported
+     */
+    private static boolean scanTest(final NodeTest<RDFNode> test, final Consumer<Node> steps) {
+        if (test instanceof PathEqualityTest || test instanceof PathTest) {
+            return scanSelector(part(test, "path"), steps);
+        } else if (test instanceof NotTest) {
+            return scanTest(part(test, "delegate"), steps);
+        } else if (test instanceof AndTest || test instanceof OrTest) {
+            return scanTest(part(test, "left"), steps) && scanTest(part(test, "right"), steps);
+        } else if (test instanceof FunctionTest) {
+            return part(test, "test") instanceof BinaryNumericTest && scanAll(part(test, "argSelectors"), steps);
+        }
+        return test instanceof LiteralTypeTest || test instanceof LiteralLanguageTest;
+    }
+
+    private static boolean scanAll(final List<NodeSelector<RDFNode>> selectors, final Consumer<Node> steps) {
+        if (selectors == null) {
+            return false;
+        }
+        for (final NodeSelector<RDFNode> selector : selectors) {
+            if (!scanSelector(selector, steps)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the parts in {@link #PARTS} that the selectors and tests of LDPath do not have
+     */
+    static List<String> missingParts() {
+        final List<String> missing = new ArrayList<>();
+        for (final Map.Entry<Class<?>, String> part : PARTS.entries()) {
+            if (findField(part.getKey(), part.getValue()) == null) {
+                missing.add(part.getKey().getSimpleName() + "." + part.getValue());
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * @return the named part of a selector or test, or null if it has none
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T part(final Object owner, final String name) {
+        final Field field = findField(owner.getClass(), name);
+        if (field == null) {
+            LOGGER.warn("Can't read {} of LDPath {}", name, owner.getClass().getSimpleName());
+            return null;
+        }
+        makeAccessible(field);
+        return (T) getField(field, owner);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+import org.apache.marmotta.ldpath.model.fields.FieldMapping;
+import org.apache.marmotta.ldpath.model.programs.Program;
+import org.fcrepo.transform.backend.BudgetedBackend;
+
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * The evaluation of a compiled LDPath program against a resource. The program is evaluated as
+ * a whole, within its budget, by {@link #evaluate()}, or when its values are first asked for.
+ * It may be prepared on one thread and evaluated on another; only the time spent evaluating
+ * counts against the budget.
+ *
+ * @author agent
+ */
+public class LDPathResult {
+
+    private final Program<RDFNode> program;
+
+    private final RDFBackend<RDFNode> backend;
+
+    private final RDFNode context;
+
+    private final LDPathBudget budget;
+
+    private Map<FieldMapping<?, RDFNode>, Collection<?>> values;
+
+    /**
+     * @param program the compiled program
+     * @param backend the backend holding the triples of the resource
+     * @param context the resource
+     */
+    public LDPathResult(final Program<RDFNode> program, final RDFBackend<RDFNode> backend, final RDFNode context) {
+        this(program, backend, context, LDPathBudget.UNLIMITED);
+    }
+
+    /**
+     * @param program the compiled program
+     * @param backend the backend holding the triples of the resource, metered by the budget
+     * @param context the resource
+     * @param budget the budget the evaluation is held to
+     */
+    public LDPathResult(final Program<RDFNode> program, final RDFBackend<RDFNode> backend, final RDFNode context,
+            final LDPathBudget budget) {
+        this.program = program;
+        this.backend = backend;
+        this.context = context;
+        this.budget = budget;
+    }
+
+    /**
+     * Get the values of a field of the program, evaluating the program if it has not been
+     * @param field a field of the program
+     * @return the values of the field
+     */
+    public Collection<?> getValues(final FieldMapping<?, RDFNode> field) {
+        return evaluate().values.get(field);
+    }
+
+    /**
+     * Evaluate every field of the program within the budget, if it has not been evaluated, so
+     * that an evaluation that overruns its budget fails before any of it is written out
+     * @return this evaluation
+     */
+    public LDPathResult evaluate() {
+        if (values != null) {
+            return this;
+        }
+        final BudgetedBackend metered = backend instanceof BudgetedBackend ? (BudgetedBackend) backend : null;
+        if (metered != null) {
+            metered.resume();
+        }
+        try {
+            final Map<FieldMapping<?, RDFNode>, Collection<?>> evaluated = new IdentityHashMap<>();
+            for (final FieldMapping<?, RDFNode> field : program.getFields()) {
+                evaluated.put(field, budget.checkValues(field.getFieldName(), field.getValues(backend, context)));
+            }
+            values = evaluated;
+        } finally {
+            if (metered != null) {
+                metered.pause();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return the compiled program
+     */
+    public Program<RDFNode> getProgram() {
+        return program;
+    }
+
+    /**
+     * @return the backend holding the triples of the resource
+     */
+    public RDFBackend<RDFNode> getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return the resource the program is evaluated against
+     */
+    public RDFNode getContext() {
+        return context;
+    }
+}
@@ -18,12 +18,16 @@
 package org.fcrepo.transform.transformations;
 
 import com.google.common.collect.ImmutableList;
+import com.hp.hpl.jena.graph.Node;
 import com.hp.hpl.jena.rdf.model.RDFNode;
 import com.hp.hpl.jena.rdf.model.Resource;
 
 import org.apache.marmotta.ldpath.LDPath;
+import org.apache.marmotta.ldpath.api.backend.RDFBackend;
 import org.apache.marmotta.ldpath.backend.jena.GenericJenaBackend;
 import org.apache.marmotta.ldpath.exception.LDPathParseException;
+import org.apache.marmotta.ldpath.model.fields.FieldMapping;
+import org.apache.marmotta.ldpath.model.programs.Program;
 
 import org.fcrepo.kernel.api.RdfStream;
 import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
@@ -31,25 +35,34 @@ import org.fcrepo.kernel.api.models.FedoraBinary;
 import org.fcrepo.kernel.api.models.FedoraResource;
 import org.fcrepo.kernel.api.services.NodeService;
 import org.fcrepo.transform.TransformNotFoundException;
+import org.fcrepo.transform.TransformMetrics;
+import org.fcrepo.transform.backend.LinkedResourceBackend;
+import org.fcrepo.transform.backend.LinkedResourceCache;
+import org.fcrepo.transform.backend.RdfStreamBackend;
 import org.fcrepo.transform.Transformation;
 
 import org.slf4j.Logger;
 
-import javax.jcr.NamespaceRegistry;
+import com.codahale.metrics.Timer;
+
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
 import static com.hp.hpl.jena.rdf.model.ResourceFactory.createResource;
-import static org.fcrepo.kernel.api.RdfCollectors.toModel;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -67,14 +80,41 @@ public class LDPathTransform implements Transformation<List<Map<String, Collecti
     public static final String APPLICATION_RDF_LDPATH = "application/rdf+ldpath";
     private final InputStream query;
 
+    private final Program<RDFNode> program;
+
+    private final LDPathBudget budget;
+
     private static final Logger LOGGER = getLogger(LDPathTransform.class);
 
+    static final LDPathProgramCache PROGRAM_CACHE = new LDPathProgramCache();
+
     /**
      * Construct a new Transform from the InputStream
      * @param query the query
      */
     public LDPathTransform(final InputStream query) {
         this.query = query;
+        this.program = null;
+        this.budget = null;
+    }
+
+    /**
+     * Construct a new Transform from an already compiled program
+     * @param program the compiled program
+     */
+    public LDPathTransform(final Program<RDFNode> program) {
+        this(program, null);
+    }
+
+    /**
+     * Construct a new Transform from an already compiled program, held to the given budget
+     * @param program the compiled program
+     * @param budget the budget, or null for the server-wide budget
+     */
+    public LDPathTransform(final Program<RDFNode> program, final LDPathBudget budget) {
+        this.query = null;
+        this.program = program;
+        this.budget = budget;
     }
 
     /**
@@ -93,29 +133,7 @@ public class LDPathTransform implements Transformation<List<Map<String, Collecti
 
         LOGGER.debug("Found transform resource: {}", transformResource.getPath());
 
-        final List<URI> rdfTypes = resource.getTypes();
-
-        LOGGER.debug("Discovered rdf types: {}", rdfTypes);
-
-        final NamespaceRegistry nsRegistry = session.getWorkspace().getNamespaceRegistry();
-
-        // convert rdf:type with URI namespace to prefixed namespace
-        final Function<URI, String> namespaceUriToPrefix = x -> {
-            final String uriString = x.toString();
-            try {
-                for (final String namespace : nsRegistry.getURIs()) {
-                    // Ignoring zero-length namespaces return the appropriate prefix
-                    if (namespace.length() > 0 && uriString.startsWith(namespace)) {
-                        return uriString.replace(namespace, nsRegistry.getPrefix(namespace) + ":");
-                    }
-                }
-                return uriString;
-            } catch (final RepositoryException e) {
-                return uriString;
-            }
-        };
-
-        final List<String> rdfStringTypes = rdfTypes.stream().map(namespaceUriToPrefix)
+        final List<String> rdfStringTypes = getPrefixedTypes(resource, session).stream()
                 .map(stringType -> transformResource.getPath() + "/" + stringType)
                 .collect(Collectors.toList());
 
@@ -125,24 +143,161 @@ public class LDPathTransform implements Transformation<List<Map<String, Collecti
                 .orElseThrow(() -> new TransformNotFoundException(
                     String.format("Couldn't find transformation for {} and transformation key {}",
                     resource.getPath(), key)));
-        return new LDPathTransform(transform.getContent());
+        return new LDPathTransform(PROGRAM_CACHE.getProgram(transform), LDPathBudget.programBudget(key));
+    }
+
+    /**
+     * Get the rdf:types of a resource, with registered namespaces replaced by their prefixes,
+     * as they are used to name the programs of a transform key
+     * @param resource the resource
+     * @param session the session
+     * @return the prefixed rdf:types of the resource
+     * @throws RepositoryException if repository exception occurred
+     */
+    static List<String> getPrefixedTypes(final FedoraResource resource, final Session session)
+            throws RepositoryException {
+
+        return getPrefixedTypes(resource, NamespacePrefixIndex.of(session.getWorkspace().getNamespaceRegistry()));
+    }
+
+    /**
+     * Get the rdf:types of a resource, compacted with the given namespaces
+     * @param resource the resource
+     * @param namespaces the namespaces to compact rdf:types with
+     * @return the prefixed rdf:types of the resource
+     */
+    static List<String> getPrefixedTypes(final FedoraResource resource, final NamespacePrefixIndex namespaces) {
+
+        final List<URI> rdfTypes = resource.getTypes();
+
+        LOGGER.debug("Discovered rdf types: {}", rdfTypes);
+
+        // convert rdf:type with URI namespace to prefixed namespace
+        final Function<URI, String> namespaceUriToPrefix = x -> {
+            final String uriString = x.toString();
+            final String prefixed = namespaces.compact(uriString);
+            return prefixed == null ? uriString : prefixed;
+        };
+
+        return rdfTypes.stream().map(namespaceUriToPrefix).collect(Collectors.toList());
     }
 
     @Override
     public List<Map<String, Collection<Object>>> apply(final RdfStream stream) {
-        final LDPath<RDFNode> ldpathForResource =
-            getLdpathResource(stream);
+        final LDPathResult result = evaluate(stream);
+        try (final Timer.Context timing = TransformMetrics.timer(LDPathTransform.class, "evaluation").time()) {
+            // as Program#execute does, but with each field held to the budget
+            final Map<String, Collection<Object>> fields = new HashMap<>();
+            for (final FieldMapping<?, RDFNode> field : result.getProgram().getFields()) {
+                fields.put(field.getFieldName(), unsafeCast(result.getValues(field)));
+            }
+            return ImmutableList.of(fields);
+        }
+    }
+
+    /**
+     * Prepare the program for evaluation against a resource; it is evaluated by
+     * {@link LDPathResult#evaluate()}, or when its values are first asked for
+     * @param stream the triples of the resource
+     * @return the prepared evaluation
+     */
+    public LDPathResult evaluate(final RdfStream stream) {
+        return evaluate(stream, null, 0);
+    }
+
+    /**
+     * Prepare the program for evaluation against a resource, following links out of it into
+     * the repository
+     * @param stream the triples of the resource
+     * @param linkedResources the descriptions of linked resources, shared across the request
+     * @param linkDepth the number of links to follow
+     * @return the prepared evaluation
+     */
+    public LDPathResult evaluate(final RdfStream stream, final LinkedResourceCache linkedResources,
+            final int linkDepth) {
+        final Program<RDFNode> compiled = compile();
+        return evaluate(compiled, retrieve(stream), createResource(stream.topic().getURI()), linkedResources,
+                linkDepth);
+    }
+
+    /**
+     * Prepare the program for evaluation against triples already read for a resource, so that
+     * several programs may share one read of the same resource
+     * @param backend the triples of the resource, as read by {@link #retrieve(RdfStream)}
+     * @param context the resource
+     * @param linkedResources the descriptions of linked resources, shared across the request
+     * @param linkDepth the number of links to follow
+     * @return the prepared evaluation
+     */
+    public LDPathResult evaluate(final RdfStreamBackend backend, final Resource context,
+            final LinkedResourceCache linkedResources, final int linkDepth) {
+        return evaluate(compile(), backend, context, linkedResources, linkDepth);
+    }
 
-        final Resource context = createResource(stream.topic().getURI());
+    /**
+     * Read the triples of a resource into a backend that any number of programs may be
+     * evaluated against
+     * @param stream the triples of the resource
+     * @return the backend
+     */
+    public static RdfStreamBackend retrieve(final RdfStream stream) {
+        final RdfStreamBackend backend;
+        try (final Timer.Context timing = TransformMetrics.timer(LDPathTransform.class, "retrieval").time()) {
+            backend = getLdpathBackend(stream);
+        }
+        TransformMetrics.histogram(LDPathTransform.class, "triples").update(backend.tripleCount());
+        return backend;
+    }
 
+    private Program<RDFNode> compile() {
         try {
-            return ImmutableList.of(unsafeCast(
-                ldpathForResource.programQuery(context, new InputStreamReader(query))));
+            return program != null ? program : parseProgram(query);
         } catch (final LDPathParseException e) {
             throw new RepositoryRuntimeException(e);
         }
     }
 
+    private LDPathResult evaluate(final Program<RDFNode> compiled, final RdfStreamBackend backend,
+            final Resource context, final LinkedResourceCache linkedResources, final int linkDepth) {
+        final RDFBackend<RDFNode> linked = linkedResources != null && linkDepth > 0 ?
+                new LinkedResourceBackend(backend, context, linkedResources, linkDepth) : backend;
+
+        final LDPathBudget evaluationBudget = budget != null ? budget : LDPathBudget.serverBudget();
+        return new LDPathResult(compiled, evaluationBudget.meter(linked), context, evaluationBudget);
+    }
+
+    /**
+     * Get the predicates this transform may traverse, so that triples with other predicates
+     * need not be retrieved for it
+     * @return the predicates, or empty if the transform may traverse any predicate
+     */
+    public Optional<Set<Node>> getRequiredPredicates() {
+        return program == null ? Optional.empty() : LDPathProjection.requiredPredicates(program);
+    }
+
+    /**
+     * Get the digest of the stored program this transform evaluates, which changes whenever
+     * the program does
+     * @return the digest, or null if the program was not read from the repository
+     */
+    public URI getProgramDigest() {
+        return program == null ? null : PROGRAM_CACHE.getDigest(program);
+    }
+
+    /**
+     * Compile an LDPath program so that it may be evaluated against any number of resources
+     * @param program the program source
+     * @return the compiled program
+     * @throws LDPathParseException if the program could not be parsed
+     */
+    static Program<RDFNode> parseProgram(final InputStream program) throws LDPathParseException {
+        // the parser only uses its backend to mint URI and literal nodes for the program
+        try (final Timer.Context timing = TransformMetrics.timer(LDPathTransform.class, "parse").time()) {
+            return new LDPath<>(new GenericJenaBackend(createDefaultModel()))
+                    .parseProgram(new InputStreamReader(program, UTF_8));
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private static <F, T> T unsafeCast(final F from) {
         return (T) from;
@@ -150,22 +305,23 @@ public class LDPathTransform implements Transformation<List<Map<String, Collecti
 
     @Override
     public boolean equals(final Object other) {
-        return other instanceof LDPathTransform && ((LDPathTransform) other).query.equals(query);
+        return other instanceof LDPathTransform && Objects.equals(((LDPathTransform) other).query, query)
+                && Objects.equals(((LDPathTransform) other).program, program);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(query);
+        return Objects.hash(query, program);
     }
 
     /**
-     * Get the LDPath resource for an object
+     * Get the LDPath backend for an object
      * @param rdfStream
-     * @return the LDPath resource for the given object
+     * @return the LDPath backend for the given object
      */
-    private static LDPath<RDFNode> getLdpathResource(final RdfStream rdfStream) {
+    private static RdfStreamBackend getLdpathBackend(final RdfStream rdfStream) {
 
-        return new LDPath<>(new GenericJenaBackend(rdfStream.collect(toModel())));
+        return new RdfStreamBackend(rdfStream.topic(), rdfStream);
 
     }
 }
@@ -0,0 +1,148 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.jcr.NamespaceRegistry;
+import javax.jcr.RepositoryException;
+
+/**
+ * An immutable trie of namespace URIs, used to compact URIs into prefixed names by
+ * longest-prefix match. A lookup walks the URI once and allocates only the prefixed name.
+ *
+ * @author agent
+ */
+public class NamespacePrefixIndex {
+
+    private final TrieNode root;
+
+    private final int size;
+
+    /**
+     * Index the given namespaces
+     * @param prefixesByNamespace namespace prefixes, by namespace URI
+     */
+    public NamespacePrefixIndex(final Map<String, String> prefixesByNamespace) {
+        // zero-length namespaces would match every URI, so they are ignored
+        final TreeMap<String, String> namespaces = new TreeMap<>(prefixesByNamespace);
+        namespaces.remove("");
+        final String[] uris = namespaces.keySet().toArray(new String[namespaces.size()]);
+        final String[] prefixes = namespaces.values().toArray(new String[namespaces.size()]);
+        this.root = build(uris, prefixes, 0, uris.length, 0);
+        this.size = uris.length;
+    }
+
+    /**
+     * Index the namespaces registered in a repository
+     * @param registry the namespace registry
+     * @return the index
+     * @throws RepositoryException if repository exception occurred
+     */
+    public static NamespacePrefixIndex of(final NamespaceRegistry registry) throws RepositoryException {
+        final Map<String, String> namespaces = new TreeMap<>();
+        for (final String uri : registry.getURIs()) {
+            namespaces.put(uri, registry.getPrefix(uri));
+        }
+        return new NamespacePrefixIndex(namespaces);
+    }
+
+    /**
+     * Replace the longest registered namespace at the start of a URI with its prefix
+     * @param uri the URI
+     * @return the prefixed name, or null if no registered namespace matches the URI
+     */
+    public String compact(final String uri) {
+        TrieNode node = root;
+        String prefix = null;
+        int namespaceLength = 0;
+        for (int i = 0; node != null; i++) {
+            if (node.prefix != null) {
+                prefix = node.prefix;
+                namespaceLength = i;
+            }
+            node = i < uri.length() ? node.child(uri.charAt(i)) : null;
+        }
+        return prefix == null ? null : prefix + ":" + uri.substring(namespaceLength);
+    }
+
+    /**
+     * @return the number of namespaces indexed
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Build the subtrie for uris[from, to), which are sorted and share their first depth characters
+     */
+    private static TrieNode build(final String[] uris, final String[] prefixes, final int from, final int to,
+            final int depth) {
+        int start = from;
+        String prefix = null;
+        // in sorted order, a namespace ending at this depth precedes the longer ones
+        if (start < to && uris[start].length() == depth) {
+            prefix = prefixes[start];
+            start++;
+        }
+
+        int branches = 0;
+        for (int i = start; i < to; i++) {
+            if (i == start || uris[i].charAt(depth) != uris[i - 1].charAt(depth)) {
+                branches++;
+            }
+        }
+
+        final char[] labels = new char[branches];
+        final TrieNode[] children = new TrieNode[branches];
+        int branch = 0;
+        for (int i = start; i < to; branch++) {
+            final char label = uris[i].charAt(depth);
+            int end = i + 1;
+            while (end < to && uris[end].charAt(depth) == label) {
+                end++;
+            }
+            labels[branch] = label;
+            children[branch] = build(uris, prefixes, i, end, depth + 1);
+            i = end;
+        }
+        return new TrieNode(prefix, labels, children);
+    }
+
+    private static class TrieNode {
+
+        private final String prefix;
+
+        private final char[] labels;
+
+        private final TrieNode[] children;
+
+        TrieNode(final String prefix, final char[] labels, final TrieNode[] children) {
+            this.prefix = prefix;
+            this.labels = labels;
+            this.children = children;
+        }
+
+        TrieNode child(final char label) {
+            final int index = Arrays.binarySearch(labels, label);
+            return index < 0 ? null : children[index];
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.sparql.util.Symbol;
+
+/**
+ * The limits on the execution of a SPARQL transform: how long its query may run, and how many
+ * results it may write. Server-wide limits are set by the {@value #TIMEOUT_PROPERTY} and
+ * {@value #MAX_ROWS_PROPERTY} system properties; a request may narrow them, but never widen
+ * them. A limit of zero means none.
+ *
+ * @author agent
+ */
+public final class SparqlExecutionLimits {
+
+    public static final String TIMEOUT_PROPERTY = "fcrepo.transform.sparql.timeout";
+
+    public static final String MAX_ROWS_PROPERTY = "fcrepo.transform.sparql.maxRows";
+
+    /**
+     * The default server-wide timeout, in ms
+     */
+    public static final long DEFAULT_TIMEOUT = 60000;
+
+    /**
+     * The context symbol under which the most results a query execution may write is kept
+     */
+    public static final Symbol MAX_ROWS = Symbol.create("http://fedora.info/definitions/v4/transform#maxRows");
+
+    private final long timeout;
+
+    private final long maxRows;
+
+    /**
+     * @param timeout the longest time a query may run, in ms
+     * @param maxRows the most results a query may write
+     */
+    public SparqlExecutionLimits(final long timeout, final long maxRows) {
+        this.timeout = Math.max(0, timeout);
+        this.maxRows = Math.max(0, maxRows);
+    }
+
+    /**
+     * @return the server-wide limits
+     */
+    public static SparqlExecutionLimits serverLimits() {
+        return new SparqlExecutionLimits(Long.getLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT),
+                Long.getLong(MAX_ROWS_PROPERTY, 0));
+    }
+
+    /**
+     * Narrow these limits to those asked for by a request
+     * @param requestedTimeout the timeout asked for, in ms, or null
+     * @param requestedMaxRows the most results asked for, or null
+     * @return the narrower limits
+     */
+    public SparqlExecutionLimits narrow(final Long requestedTimeout, final Long requestedMaxRows) {
+        return new SparqlExecutionLimits(narrow(timeout, requestedTimeout), narrow(maxRows, requestedMaxRows));
+    }
+
+    private static long narrow(final long limit, final Long requested) {
+        if (requested == null || requested <= 0) {
+            return limit;
+        }
+        return limit == 0 ? requested : Math.min(limit, requested);
+    }
+
+    /**
+     * Apply these limits to a query execution
+     * @param qexec the query execution
+     * @return the query execution
+     */
+    public QueryExecution applyTo(final QueryExecution qexec) {
+        if (timeout > 0) {
+            qexec.setTimeout(timeout, MILLISECONDS);
+        }
+        if (maxRows > 0) {
+            qexec.getContext().set(MAX_ROWS, maxRows);
+        }
+        return qexec;
+    }
+
+    /**
+     * Get the most results a query execution may write
+     * @param qexec the query execution
+     * @return the most results, or zero for no limit
+     */
+    public static long maxRowsOf(final QueryExecution qexec) {
+        final Object maxRows = qexec.getContext() == null ? null : qexec.getContext().get(MAX_ROWS);
+        return maxRows instanceof Number ? ((Number) maxRows).longValue() : 0;
+    }
+
+    /**
+     * @return the longest time a query may run, in ms
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the most results a query may write
+     */
+    public long getMaxRows() {
+        return maxRows;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static com.google.common.hash.Hashing.sha1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.fcrepo.transform.TransformMetrics;
+import org.slf4j.Logger;
+
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.hp.hpl.jena.query.Query;
+
+/**
+ * A bounded, least-recently-used cache of parsed SPARQL queries, keyed by a digest of
+ * the query text. Line endings and surrounding whitespace are normalized before digesting,
+ * so the same query sent from different clients shares an entry.
+ *
+ * <p>Queries are parsed by {@link SparqlQueryTransform#parseQuery(String)}, which leaves them
+ * safe to share between executions as long as no caller modifies them, so every caller is given
+ * the same parsed query.</p>
+ *
+ * @author agent
+ */
+public class SparqlQueryCache {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 256;
+
+    private static final Counter HITS = TransformMetrics.counter(SparqlQueryCache.class, "hits");
+
+    private static final Counter MISSES = TransformMetrics.counter(SparqlQueryCache.class, "misses");
+
+    private static final Logger LOGGER = getLogger(SparqlQueryCache.class);
+
+    private final Cache<HashCode, Query> queries;
+
+    /**
+     * Create a cache holding at most {@link #DEFAULT_MAXIMUM_SIZE} queries
+     */
+    public SparqlQueryCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Create a cache holding at most the given number of queries
+     * @param maximumSize the maximum number of parsed queries to keep
+     */
+    public SparqlQueryCache(final long maximumSize) {
+        this.queries = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * Get the parsed form of a query, parsing it if needed
+     * @param queryText the text of the query
+     * @return the parsed query, which must not be modified
+     */
+    public Query getQuery(final String queryText) {
+        final String normalized = normalize(queryText);
+        final HashCode key = sha1().hashString(normalized, UTF_8);
+
+        final Query cached = queries.getIfPresent(key);
+        if (cached != null) {
+            HITS.inc();
+            return cached;
+        }
+
+        MISSES.inc();
+        LOGGER.debug("Parsing SPARQL query {}", key);
+        final Query query = SparqlQueryTransform.parseQuery(normalized);
+        queries.put(key, query);
+        return query;
+    }
+
+    /**
+     * Drop all parsed queries
+     */
+    public void invalidateAll() {
+        queries.invalidateAll();
+    }
+
+    /**
+     * @return the number of parsed queries held
+     */
+    public long size() {
+        return queries.size();
+    }
+
+    private static String normalize(final String queryText) {
+        return queryText.replace("\r\n", "\n").replace('\r', '\n').trim();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static org.fcrepo.transform.transformations.SparqlQueryTransform.forQuery;
+import static org.fcrepo.transform.transformations.SparqlQueryTransform.readStoredQuery;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.api.services.NodeService;
+import org.slf4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.hp.hpl.jena.query.Query;
+
+/**
+ * The stored SPARQL transforms, parsed once and held in memory by name. A query is read from
+ * the repository the first time it is requested, and dropped again by {@link #invalidate(String)}
+ * when it changes. As with {@link SparqlQueryCache}, every execution of a stored query shares its
+ * one parsed form, which {@link SparqlQueryTransform#parseQuery(String)} leaves safe to share.
+ *
+ * @author agent
+ */
+@Component
+public class SparqlQueryRegistry {
+
+    private static final Logger LOGGER = getLogger(SparqlQueryRegistry.class);
+
+    private final ConcurrentMap<String, Query> queries = new ConcurrentHashMap<>();
+
+    /**
+     * Pull the stored SPARQL transform with the given name
+     * @param session the session
+     * @param nodeService a nodeService
+     * @param name the name of the stored query
+     * @return the stored transform
+     */
+    public SparqlQueryTransform getStoredTransform(final Session session, final NodeService nodeService,
+            final String name) {
+        final Query cached = queries.get(name);
+        if (cached != null) {
+            return forQuery(cached);
+        }
+        // read outside of the map, so that reading through the session holds no lock on it
+        final Query query = readStoredQuery(session, nodeService, name);
+        final Query raced = queries.putIfAbsent(name, query);
+        return forQuery(raced != null ? raced : query);
+    }
+
+    /**
+     * Drop the parsed form of a stored query
+     * @param name the name of the stored query
+     */
+    public void invalidate(final String name) {
+        LOGGER.debug("Dropping parsed SPARQL query {}", name);
+        queries.remove(name);
+    }
+
+    /**
+     * Drop the parsed form of every stored query
+     */
+    public void invalidateAll() {
+        queries.clear();
+    }
+}
@@ -17,18 +17,28 @@
  */
 package org.fcrepo.transform.transformations;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.fcrepo.kernel.api.RdfCollectors.toModel;
 
+import com.codahale.metrics.Timer;
 import com.hp.hpl.jena.query.Query;
 import com.hp.hpl.jena.query.QueryExecution;
 import com.hp.hpl.jena.query.QueryExecutionFactory;
 import com.hp.hpl.jena.query.QueryFactory;
 import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.sparql.syntax.ElementGroup;
 
 import org.apache.commons.io.IOUtils;
 import org.fcrepo.kernel.api.RdfStream;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.kernel.api.services.NodeService;
+import org.fcrepo.transform.TransformMetrics;
+import org.fcrepo.transform.TransformNotFoundException;
 import org.fcrepo.transform.Transformation;
 
+import javax.jcr.Session;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Objects;
@@ -40,24 +50,105 @@ import java.util.Objects;
  */
 public class SparqlQueryTransform implements Transformation<QueryExecution> {
 
+    public static final String CONFIGURATION_FOLDER = "/fedora:system/fedora:transform/fedora:sparql/";
+
+    private static final SparqlQueryCache QUERY_CACHE = new SparqlQueryCache();
+
     private final InputStream query;
 
+    private final Query parsedQuery;
+
     /**
      * Construct a new SparqlQueryTransform from the data from
      * the InputStream
      * @param query the query
      */
     public SparqlQueryTransform(final InputStream query) {
+        this(query, null);
+    }
+
+    private SparqlQueryTransform(final InputStream query, final Query parsedQuery) {
         this.query = query;
+        this.parsedQuery = parsedQuery;
+    }
+
+    /**
+     * Construct a new SparqlQueryTransform from an already parsed query, which must not be modified
+     * @param parsedQuery the parsed query
+     * @return the transform
+     */
+    public static SparqlQueryTransform forQuery(final Query parsedQuery) {
+        return new SparqlQueryTransform(null, parsedQuery);
+    }
+
+    /**
+     * Pull the stored SPARQL transform with the given name
+     * @param session the session
+     * @param nodeService a nodeService
+     * @param name the name of the stored query
+     * @return the stored transform
+     */
+    public static SparqlQueryTransform getStoredTransform(final Session session, final NodeService nodeService,
+            final String name) {
+        return forQuery(readStoredQuery(session, nodeService, name));
+    }
+
+    /**
+     * Read and parse the stored query with the given name
+     * @param session the session
+     * @param nodeService a nodeService
+     * @param name the name of the stored query
+     * @return the parsed query
+     */
+    static Query readStoredQuery(final Session session, final NodeService nodeService, final String name) {
+        final String path = CONFIGURATION_FOLDER + name;
+        if (name.contains("/") || !nodeService.exists(session, path)) {
+            throw new TransformNotFoundException(String.format("Couldn't find stored SPARQL query %s", name));
+        }
+
+        final FedoraResource resource = nodeService.find(session, path);
+        if (!(resource instanceof FedoraBinary)) {
+            throw new TransformNotFoundException(String.format("%s is not a stored SPARQL query", name));
+        }
+
+        try (final InputStream content = ((FedoraBinary) resource).getContent()) {
+            return parseQuery(IOUtils.toString(content, UTF_8));
+        } catch (final IOException e) {
+            throw new RepositoryRuntimeException(e);
+        }
+    }
+
+    /**
+     * Parse a query so that it may be shared by any number of executions. Jena executions make
+     * a few changes to the query they run, and it caches its hash code; all of these are made
+     * here instead, so that executions find them already made and only ever read the query.
+     * @param queryText the text of the query
+     * @return the parsed query, which must not be modified
+     */
+    static Query parseQuery(final String queryText) {
+        final Query parsed = QueryFactory.create(queryText);
+        if (parsed.isConstructType()) {
+            parsed.setQueryResultStar(true);
+        }
+        if (parsed.isDescribeType() && parsed.getQueryPattern() == null) {
+            parsed.setQueryPattern(new ElementGroup());
+        }
+        parsed.setResultVars();
+        parsed.hashCode();
+        return parsed;
     }
 
     @Override
     public QueryExecution apply(final RdfStream rdfStream) {
 
         try {
-            final Model model = rdfStream.collect(toModel());
-            final Query sparqlQuery =
-                QueryFactory.create(IOUtils.toString(query));
+            final Model model;
+            try (final Timer.Context timing = TransformMetrics.timer(SparqlQueryTransform.class, "model").time()) {
+                model = rdfStream.collect(toModel());
+            }
+            TransformMetrics.histogram(SparqlQueryTransform.class, "triples").update(model.size());
+            final Query sparqlQuery = parsedQuery != null ? parsedQuery :
+                    QUERY_CACHE.getQuery(IOUtils.toString(query, UTF_8));
 
             return QueryExecutionFactory.create(sparqlQuery, model);
         } catch (final IOException e) {
@@ -67,11 +158,12 @@ public class SparqlQueryTransform implements Transformation<QueryExecution> {
 
     @Override
     public boolean equals(final Object other) {
-        return other instanceof SparqlQueryTransform && query.equals(((SparqlQueryTransform)other).query);
+        return other instanceof SparqlQueryTransform && Objects.equals(((SparqlQueryTransform) other).query, query)
+                && Objects.equals(((SparqlQueryTransform) other).parsedQuery, parsedQuery);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(query);
+        return Objects.hash(query, parsedQuery);
     }
 }
@@ -18,8 +18,14 @@
 package org.fcrepo.integration;
 
 import static java.util.UUID.randomUUID;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static javax.ws.rs.core.Response.Status.CREATED;
+import static javax.ws.rs.core.Response.Status.NOT_MODIFIED;
+import static javax.ws.rs.core.Response.Status.NO_CONTENT;
 import static javax.ws.rs.core.Response.Status.OK;
+import static org.apache.jena.riot.WebContent.contentTypeSPARQLQuery;
+import static org.apache.jena.riot.WebContent.contentTypeTextCSV;
+import static org.fcrepo.kernel.api.RdfLexicon.REPOSITORY_NAMESPACE;
 import static org.fcrepo.transform.transformations.LDPathTransform.APPLICATION_RDF_LDPATH;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -30,14 +36,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.UUID;
 
+import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.ParseException;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.entity.BasicHttpEntity;
 import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.util.EntityUtils;
 import org.junit.Test;
 import org.springframework.test.annotation.DirtiesContext;
@@ -153,6 +162,105 @@ public class FedoraTransformIT extends AbstractResourceIT {
 
     }
 
+    @Test
+    public void testLdpathWithSeveralPrograms() throws IOException {
+        final String pid = "testLdpathWithSeveralPrograms-" + randomUUID();
+        createObject(pid);
+        final HttpGet getRequest =
+                new HttpGet(serverAddress + "/" + pid + "/fcr:transform?program=default&program=deluxe");
+        final HttpResponse response = client.execute(getRequest);
+        assertEquals(OK.getStatusCode(), response.getStatusLine().getStatusCode());
+        final JsonNode rootNode = new ObjectMapper().readTree(EntityUtils.toString(response.getEntity()));
+
+        assertEquals("Failed to retrieve correct identifier from the default program!", serverAddress + "/" + pid,
+                rootNode.get("default").get(0).get("id").elements().next().asText());
+        assertEquals("Failed to retrieve correct identifier from the deluxe program!", serverAddress + "/" + pid,
+                rootNode.get("deluxe").get(0).get("id").elements().next().asText());
+        assertNotNull(rootNode.get("deluxe").get(0).get("createdBy"));
+    }
+
+    @Test
+    public void testLdpathWithoutProgram() throws IOException {
+        final String pid = "testLdpathWithoutProgram-" + randomUUID();
+        createObject(pid);
+        final HttpResponse response = client.execute(new HttpGet(serverAddress + "/" + pid + "/fcr:transform"));
+        assertEquals(BAD_REQUEST.getStatusCode(), response.getStatusLine().getStatusCode());
+        EntityUtils.consume(response.getEntity());
+    }
+
+    @Test
+    public void testLdpathNotModified() throws IOException {
+        final String pid = "testLdpathNotModified-" + randomUUID();
+        createObject(pid);
+        final String transform = serverAddress + "/" + pid + "/fcr:transform/default";
+
+        final HttpResponse response = client.execute(new HttpGet(transform));
+        assertEquals(OK.getStatusCode(), response.getStatusLine().getStatusCode());
+        EntityUtils.consume(response.getEntity());
+        final Header etag = response.getFirstHeader("ETag");
+        assertNotNull("Transform results should be tagged", etag);
+        assertTrue("Transform results should vary by preference",
+                response.getFirstHeader("Vary").getValue().contains("Prefer"));
+
+        final HttpGet conditionalRequest = new HttpGet(transform);
+        conditionalRequest.setHeader("If-None-Match", etag.getValue());
+        final HttpResponse notModified = client.execute(conditionalRequest);
+        assertEquals(NOT_MODIFIED.getStatusCode(), notModified.getStatusLine().getStatusCode());
+        EntityUtils.consume(notModified.getEntity());
+
+        final HttpGet otherPreference = new HttpGet(transform);
+        otherPreference.setHeader("If-None-Match", etag.getValue());
+        otherPreference.setHeader("Prefer",
+                "return=representation; omit=\"http://www.w3.org/ns/ldp#PreferContainment\"");
+        final HttpResponse modified = client.execute(otherPreference);
+        assertEquals(OK.getStatusCode(), modified.getStatusLine().getStatusCode());
+        EntityUtils.consume(modified.getEntity());
+
+        final HttpPatch update = new HttpPatch(serverAddress + "/" + pid);
+        update.setHeader("Content-Type", "application/sparql-update");
+        update.setEntity(new StringEntity("INSERT DATA { <> <http://purl.org/dc/elements/1.1/title> \"title\" }"));
+        final HttpResponse updated = client.execute(update);
+        assertEquals(NO_CONTENT.getStatusCode(), updated.getStatusLine().getStatusCode());
+        EntityUtils.consume(updated.getEntity());
+
+        final HttpResponse changed = client.execute(conditionalRequest);
+        assertEquals(OK.getStatusCode(), changed.getStatusLine().getStatusCode());
+        EntityUtils.consume(changed.getEntity());
+    }
+
+    @Test
+    public void testStoredSparqlQuery() throws IOException {
+        final String pid = "testStoredSparqlQuery-" + randomUUID();
+        createObject(pid);
+
+        final String name = "types-" + randomUUID();
+        final HttpPut putQuery = new HttpPut(serverAddress + "/fedora:system/fedora:transform/fedora:sparql/" + name);
+        putQuery.setHeader("Content-Type", contentTypeSPARQLQuery);
+        putQuery.setEntity(new StringEntity("SELECT ?type WHERE { ?s a ?type }"));
+        final HttpResponse stored = client.execute(putQuery);
+        assertEquals(CREATED.getStatusCode(), stored.getStatusLine().getStatusCode());
+        EntityUtils.consume(stored.getEntity());
+
+        final HttpGet getRequest = new HttpGet(serverAddress + "/" + pid + "/fcr:transform/sparql/" + name);
+        getRequest.setHeader("Accept", contentTypeTextCSV);
+        final HttpResponse response = client.execute(getRequest);
+        assertEquals(OK.getStatusCode(), response.getStatusLine().getStatusCode());
+        final String content = EntityUtils.toString(response.getEntity());
+        logger.debug("Retrieved stored SPARQL results:\n" + content);
+        assertTrue("Couldn't find the type of the resource!", content.contains(REPOSITORY_NAMESPACE + "Container"));
+    }
+
+    @Test
+    public void testMissingStoredSparqlQuery() throws IOException {
+        final String pid = "testMissingStoredSparqlQuery-" + randomUUID();
+        createObject(pid);
+        final HttpGet getRequest = new HttpGet(serverAddress + "/" + pid + "/fcr:transform/sparql/" + randomUUID());
+        getRequest.setHeader("Accept", contentTypeTextCSV);
+        final HttpResponse response = client.execute(getRequest);
+        assertEquals(BAD_REQUEST.getStatusCode(), response.getStatusLine().getStatusCode());
+        EntityUtils.consume(response.getEntity());
+    }
+
     @Test
     public void testMakeReferenceToTransformSpace() throws IOException {
         final String pid = UUID.randomUUID().toString();
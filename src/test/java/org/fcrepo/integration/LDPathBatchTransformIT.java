@@ -0,0 +1,149 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.integration;
+
+import static java.util.UUID.randomUUID;
+import static javax.ws.rs.core.Response.Status.CREATED;
+import static javax.ws.rs.core.Response.Status.OK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * <p>LDPathBatchTransformIT class.</p>
+ *
+ * @author agent
+ */
+@ContextConfiguration({"/spring-test/test-container.xml"})
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+public class LDPathBatchTransformIT extends AbstractResourceIT {
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    @Test
+    public void testBatch() throws IOException {
+        final String pid = "testBatch-" + randomUUID();
+        createObject(pid);
+        createChild(pid, "first");
+        createChild(pid, "second");
+
+        final List<JsonNode> lines = batch(pid, "", "first\nsecond\nmissing\n");
+
+        assertEquals("Wrote the wrong number of lines!", 3, lines.size());
+        assertEquals("first", lines.get(0).get("path").asText());
+        assertEquals(serverAddress + "/" + pid + "/first",
+                lines.get(0).get("result").get("id").elements().next().asText());
+        assertEquals("second", lines.get(1).get("path").asText());
+        assertEquals(serverAddress + "/" + pid + "/second",
+                lines.get(1).get("result").get("id").elements().next().asText());
+        assertEquals("missing", lines.get(2).get("path").asText());
+        assertNull("A missing resource should have no result", lines.get(2).get("result"));
+        assertNotNull("A missing resource should have an error", lines.get(2).get("error"));
+    }
+
+    @Test
+    public void testParallelBatch() throws IOException {
+        final String pid = "testParallelBatch-" + randomUUID();
+        createObject(pid);
+        final StringBuilder paths = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            createChild(pid, "child" + i);
+            paths.append("child").append(i).append('\n');
+        }
+
+        final List<JsonNode> lines = batch(pid, "?parallel=true", paths.toString());
+
+        assertEquals("Wrote the wrong number of lines!", 10, lines.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("Wrote a result out of order!", "child" + i, lines.get(i).get("path").asText());
+            assertNotNull(lines.get(i).get("result"));
+        }
+    }
+
+    @Test
+    public void testSubtree() throws IOException {
+        final String pid = "testSubtree-" + randomUUID();
+        createObject(pid);
+        createChild(pid, "child");
+        createChild(pid + "/child", "grandchild");
+
+        final List<JsonNode> all = subtree(pid, "");
+        assertEquals("Walked the wrong number of resources!", 3, all.size());
+        assertEquals("/" + pid, all.get(0).get("path").asText());
+        assertEquals("/" + pid + "/child", all.get(1).get("path").asText());
+        assertEquals("/" + pid + "/child/grandchild", all.get(2).get("path").asText());
+
+        final List<JsonNode> children = subtree(pid, "?depth=1");
+        assertEquals("Walked the wrong number of resources!", 2, children.size());
+    }
+
+    private void createChild(final String parent, final String child) throws IOException {
+        final HttpResponse response = client.execute(new HttpPut(serverAddress + "/" + parent + "/" + child));
+        assertEquals(CREATED.getStatusCode(), response.getStatusLine().getStatusCode());
+        EntityUtils.consume(response.getEntity());
+    }
+
+    private List<JsonNode> batch(final String pid, final String query, final String paths) throws IOException {
+        final HttpPost request = new HttpPost(serverAddress + "/" + pid + "/fcr:transform/default/batch" + query);
+        request.setHeader("Content-Type", "text/plain");
+        request.setHeader("Accept", APPLICATION_NDJSON);
+        request.setEntity(new StringEntity(paths));
+        return readLines(client.execute(request));
+    }
+
+    private List<JsonNode> subtree(final String pid, final String query) throws IOException {
+        final HttpGet request = new HttpGet(serverAddress + "/" + pid + "/fcr:transform/default/subtree" + query);
+        request.setHeader("Accept", APPLICATION_NDJSON);
+        return readLines(client.execute(request));
+    }
+
+    private static List<JsonNode> readLines(final HttpResponse response) throws IOException {
+        assertEquals(OK.getStatusCode(), response.getStatusLine().getStatusCode());
+        assertTrue(response.getFirstHeader("Content-Type").getValue().startsWith(APPLICATION_NDJSON));
+        final String content = EntityUtils.toString(response.getEntity());
+        logger.debug("Retrieved LDPath results:\n" + content);
+
+        final ObjectMapper mapper = new ObjectMapper();
+        final List<JsonNode> lines = new ArrayList<>();
+        for (final String line : content.split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(mapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+}
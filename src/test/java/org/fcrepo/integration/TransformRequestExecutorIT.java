@@ -0,0 +1,73 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.integration;
+
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static javax.ws.rs.core.Response.Status.OK;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+
+/**
+ * <p>TransformRequestExecutorIT class.</p>
+ *
+ * @author agent
+ */
+@ContextConfiguration({"/spring-test/test-container.xml"})
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+public class TransformRequestExecutorIT extends AbstractResourceIT {
+
+    private static final int REQUESTS = 32;
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final String pid = "testConcurrentRequests-" + randomUUID();
+        createObject(pid);
+
+        final ExecutorService clients = newFixedThreadPool(REQUESTS);
+        try {
+            final List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                statuses.add(clients.submit(() -> {
+                    final HttpResponse response =
+                            client.execute(new HttpGet(serverAddress + "/" + pid + "/fcr:transform/default"));
+                    EntityUtils.consume(response.getEntity());
+                    return response.getStatusLine().getStatusCode();
+                }));
+            }
+            // the requests fit within the default queue, so each waits its turn rather than being turned away
+            for (final Future<Integer> status : statuses) {
+                assertEquals(OK.getStatusCode(), status.get().intValue());
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>DepthFirstResourceIteratorTest class.</p>
+ *
+ * @author agent
+ */
+public class DepthFirstResourceIteratorTest {
+
+    private FedoraResource root;
+
+    private FedoraResource a;
+
+    private FedoraResource a1;
+
+    @Before
+    public void setUp() {
+        a1 = resource("/root/a/a1");
+        a = resource("/root/a", a1, resource("/root/a/a2"));
+        root = resource("/root", a, resource("/root/b"));
+    }
+
+    @Test
+    public void testWalkAll() {
+        assertEquals(asList("/root", "/root/a", "/root/a/a1", "/root/a/a2", "/root/b"), walk(-1));
+    }
+
+    @Test
+    public void testWalkToDepth() {
+        assertEquals(asList("/root", "/root/a", "/root/b"), walk(1));
+        verify(a, never()).getChildren();
+    }
+
+    @Test
+    public void testWalkRootOnly() {
+        assertEquals(asList("/root"), walk(0));
+        verify(root, never()).getChildren();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextWhenExhausted() {
+        final Iterator<FedoraResource> walk = new DepthFirstResourceIterator(a1, -1);
+        walk.next();
+        assertFalse(walk.hasNext());
+        walk.next();
+    }
+
+    private List<String> walk(final int depth) {
+        final List<String> paths = new ArrayList<>();
+        new DepthFirstResourceIterator(root, depth).forEachRemaining(resource -> paths.add(resource.getPath()));
+        return paths;
+    }
+
+    private static FedoraResource resource(final String path, final FedoraResource... children) {
+        final FedoraResource resource = mock(FedoraResource.class);
+        when(resource.getPath()).thenReturn(path);
+        when(resource.getChildren()).thenAnswer(invocation -> asList(children).stream());
+        return resource;
+    }
+}
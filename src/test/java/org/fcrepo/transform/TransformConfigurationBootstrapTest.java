@@ -0,0 +1,178 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static org.fcrepo.transform.TransformConfigurationBootstrap.BOOTSTRAP_VERSION;
+import static org.fcrepo.transform.TransformConfigurationBootstrap.BOOTSTRAP_VERSION_PROPERTY;
+import static org.fcrepo.transform.TransformConfigurationBootstrap.TRANSFORM_CONFIGURATION_ROOT;
+import static org.fcrepo.transform.transformations.LDPathTransform.CONFIGURATION_FOLDER;
+import static org.fcrepo.transform.transformations.LDPathTransform.DEFAULT_TRANSFORM_RESOURCE;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+import java.io.InputStream;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+
+import org.fcrepo.http.commons.session.SessionFactory;
+import org.fcrepo.kernel.api.models.Container;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.fcrepo.kernel.api.services.BinaryService;
+import org.fcrepo.kernel.api.services.ContainerService;
+import org.fcrepo.kernel.api.services.NodeService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>TransformConfigurationBootstrapTest class.</p>
+ *
+ * @author agent
+ */
+public class TransformConfigurationBootstrapTest {
+
+    @Mock
+    private SessionFactory mockSessions;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Node mockConfigurationRoot;
+
+    @Mock
+    private Property mockVersionProperty;
+
+    @Mock
+    private NodeService mockNodeService;
+
+    @Mock
+    private ContainerService mockContainerService;
+
+    @Mock
+    private BinaryService mockBinaryService;
+
+    @Mock
+    private Container mockContainer;
+
+    @Mock
+    private FedoraBinary mockBinary;
+
+    private TransformConfigurationBootstrap testObj;
+
+    @Before
+    public void setUp() throws RepositoryException {
+        initMocks(this);
+        testObj = new TransformConfigurationBootstrap();
+        setField(testObj, "sessions", mockSessions);
+        setField(testObj, "nodeService", mockNodeService);
+        setField(testObj, "containerService", mockContainerService);
+        setField(testObj, "binaryService", mockBinaryService);
+
+        when(mockSessions.getInternalSession()).thenReturn(mockSession);
+        when(mockSession.getNode(TRANSFORM_CONFIGURATION_ROOT)).thenReturn(mockConfigurationRoot);
+        when(mockContainerService.findOrCreate(eq(mockSession), anyString())).thenReturn(mockContainer);
+        when(mockBinaryService.findOrCreate(eq(mockSession), anyString())).thenReturn(mockBinary);
+    }
+
+    @Test
+    public void testFirstBootstrap() throws Exception {
+        testObj.ensureBootstrapped();
+
+        verify(mockContainerService).findOrCreate(mockSession, CONFIGURATION_FOLDER + "default");
+        verify(mockContainerService).findOrCreate(mockSession, CONFIGURATION_FOLDER + "deluxe");
+        verify(mockBinary, times(2)).setContent(any(InputStream.class), any(), any(), any(), any());
+        verify(mockConfigurationRoot).setProperty(BOOTSTRAP_VERSION_PROPERTY, BOOTSTRAP_VERSION);
+        verify(mockSession).save();
+        verify(mockSession).logout();
+    }
+
+    @Test
+    public void testBootstrapKeepsExistingPrograms() throws Exception {
+        when(mockNodeService.exists(eq(mockSession), anyString())).thenReturn(true);
+
+        testObj.ensureBootstrapped();
+
+        verify(mockBinaryService, never()).findOrCreate(eq(mockSession), anyString());
+        verify(mockConfigurationRoot).setProperty(BOOTSTRAP_VERSION_PROPERTY, BOOTSTRAP_VERSION);
+    }
+
+    @Test
+    public void testAlreadyBootstrappedRepository() throws Exception {
+        when(mockConfigurationRoot.hasProperty(BOOTSTRAP_VERSION_PROPERTY)).thenReturn(true);
+        when(mockConfigurationRoot.getProperty(BOOTSTRAP_VERSION_PROPERTY)).thenReturn(mockVersionProperty);
+        when(mockVersionProperty.getLong()).thenReturn(BOOTSTRAP_VERSION);
+        when(mockNodeService.exists(eq(mockSession), anyString())).thenReturn(true);
+
+        testObj.ensureBootstrapped();
+
+        verify(mockContainerService, never()).findOrCreate(mockSession, CONFIGURATION_FOLDER + "default");
+        verify(mockConfigurationRoot, never()).setProperty(eq(BOOTSTRAP_VERSION_PROPERTY), anyLong());
+        verify(mockSession, never()).save();
+        verify(mockSession).logout();
+    }
+
+    @Test
+    public void testDeletedProgramIsRestored() throws Exception {
+        when(mockConfigurationRoot.hasProperty(BOOTSTRAP_VERSION_PROPERTY)).thenReturn(true);
+        when(mockConfigurationRoot.getProperty(BOOTSTRAP_VERSION_PROPERTY)).thenReturn(mockVersionProperty);
+        when(mockVersionProperty.getLong()).thenReturn(BOOTSTRAP_VERSION);
+        when(mockNodeService.exists(eq(mockSession), anyString())).thenReturn(true);
+        when(mockNodeService.exists(mockSession, CONFIGURATION_FOLDER + "deluxe/" + DEFAULT_TRANSFORM_RESOURCE))
+            .thenReturn(false);
+
+        testObj.ensureBootstrapped();
+
+        verify(mockBinaryService)
+            .findOrCreate(mockSession, CONFIGURATION_FOLDER + "deluxe/" + DEFAULT_TRANSFORM_RESOURCE);
+        verify(mockBinaryService, never())
+            .findOrCreate(mockSession, CONFIGURATION_FOLDER + "default/" + DEFAULT_TRANSFORM_RESOURCE);
+        verify(mockBinary).setContent(any(InputStream.class), any(), any(), any(), any());
+        verify(mockSession).save();
+    }
+
+    @Test
+    public void testBootstrapRunsOnce() throws Exception {
+        testObj.ensureBootstrapped();
+        testObj.ensureBootstrapped();
+
+        verify(mockSessions, times(1)).getInternalSession();
+    }
+
+    @Test
+    public void testFailedBootstrapIsRetried() throws Exception {
+        doThrow(new RepositoryException("expected")).when(mockSession).save();
+        testObj.bootstrapAtStartup();
+        verify(mockSessions, times(1)).getInternalSession();
+
+        testObj.bootstrapAtStartup();
+        verify(mockSessions, times(2)).getInternalSession();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static org.fcrepo.transform.TransformConfigurationBootstrap.TRANSFORM_CONFIGURATION_ROOT;
+import static org.fcrepo.transform.TransformConfigurationObserver.NAMESPACES_ROOT;
+import static org.fcrepo.transform.transformations.LDPathTransform.CONFIGURATION_FOLDER;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Workspace;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+import javax.jcr.observation.ObservationManager;
+
+import org.fcrepo.transform.transformations.LDPathProgramIndex;
+import org.fcrepo.transform.transformations.SparqlQueryRegistry;
+import org.fcrepo.transform.transformations.SparqlQueryTransform;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+/**
+ * <p>TransformConfigurationObserverTest class.</p>
+ *
+ * @author agent
+ */
+public class TransformConfigurationObserverTest {
+
+    @Mock
+    private LDPathProgramIndex mockProgramIndex;
+
+    @Mock
+    private SparqlQueryRegistry mockQueryRegistry;
+
+    @Mock
+    private EventIterator mockEvents;
+
+    @Mock
+    private Event mockEvent;
+
+    @Mock
+    private Repository mockRepository;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Workspace mockWorkspace;
+
+    @Mock
+    private ObservationManager mockObservationManager;
+
+    private TransformConfigurationObserver testObj;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        testObj = new TransformConfigurationObserver();
+        setField(testObj, "programIndex", mockProgramIndex);
+        setField(testObj, "queryRegistry", mockQueryRegistry);
+        when(mockEvents.hasNext()).thenReturn(true, false);
+        when(mockEvents.nextEvent()).thenReturn(mockEvent);
+    }
+
+    @Test
+    public void testProgramChange() throws RepositoryException {
+        when(mockEvent.getPath()).thenReturn(CONFIGURATION_FOLDER + "default/fedora:Container/jcr:content");
+        testObj.onEvent(mockEvents);
+        verify(mockProgramIndex).invalidate("default");
+    }
+
+    @Test
+    public void testKeyChange() throws RepositoryException {
+        when(mockEvent.getPath()).thenReturn(CONFIGURATION_FOLDER + "deluxe");
+        testObj.onEvent(mockEvents);
+        verify(mockProgramIndex).invalidate("deluxe");
+    }
+
+    @Test
+    public void testStoredQueryChange() throws RepositoryException {
+        when(mockEvent.getPath()).thenReturn(SparqlQueryTransform.CONFIGURATION_FOLDER + "titles/jcr:content");
+        testObj.onEvent(mockEvents);
+        verify(mockQueryRegistry).invalidate("titles");
+        verify(mockProgramIndex, never()).invalidateAll();
+    }
+
+    @Test
+    public void testConfigurationFolderChange() throws RepositoryException {
+        when(mockEvent.getPath()).thenReturn("/fedora:system/fedora:transform/fedora:ldpath");
+        testObj.onEvent(mockEvents);
+        verify(mockProgramIndex).invalidateAll();
+    }
+
+    @Test
+    public void testNamespaceChange() throws RepositoryException {
+        setField(testObj, "repository", mockRepository);
+        when(mockRepository.login()).thenReturn(mockSession);
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        when(mockWorkspace.getObservationManager()).thenReturn(mockObservationManager);
+        testObj.buildListener();
+
+        verify(mockObservationManager).addEventListener(eq(testObj), anyInt(), eq(TRANSFORM_CONFIGURATION_ROOT),
+                anyBoolean(), any(String[].class), any(String[].class), anyBoolean());
+        final ArgumentCaptor<EventListener> namespaceListener = ArgumentCaptor.forClass(EventListener.class);
+        verify(mockObservationManager).addEventListener(namespaceListener.capture(), anyInt(), eq(NAMESPACES_ROOT),
+                anyBoolean(), any(String[].class), any(String[].class), anyBoolean());
+
+        namespaceListener.getValue().onEvent(mockEvents);
+        verify(mockProgramIndex).invalidateNamespaces();
+        verify(mockProgramIndex, never()).invalidateAll();
+
+        testObj.stopListening();
+        verify(mockObservationManager).removeEventListener(namespaceListener.getValue());
+        verify(mockSession).logout();
+    }
+
+    @Test
+    public void testUnrelatedChange() throws RepositoryException {
+        when(mockEvent.getPath()).thenReturn("/fedora:system/fedora:transform/fedora:transformBootstrapVersion");
+        testObj.onEvent(mockEvents);
+        verify(mockProgramIndex, never()).invalidateAll();
+        verify(mockQueryRegistry, never()).invalidateAll();
+    }
+}
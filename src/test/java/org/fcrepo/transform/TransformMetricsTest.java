@@ -0,0 +1,58 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static javax.ws.rs.core.MediaType.valueOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.fcrepo.metrics.RegistryService;
+import org.junit.Test;
+
+import com.codahale.metrics.Timer;
+
+/**
+ * <p>TransformMetricsTest class.</p>
+ *
+ * @author agent
+ */
+public class TransformMetricsTest {
+
+    @Test
+    public void testTimerIsNamedForStageAndTags() {
+        final Timer timer = TransformMetrics.timer(TransformMetricsTest.class, "lookup", "default");
+        assertSame(timer, RegistryService.getInstance().getMetrics().getTimers()
+                .get("org.fcrepo.transform.TransformMetricsTest.lookup.default"));
+        assertSame(timer, TransformMetrics.timer(TransformMetricsTest.class, "lookup", "default"));
+    }
+
+    @Test
+    public void testMetricWithoutTags() {
+        TransformMetrics.histogram(TransformMetricsTest.class, "triples").update(3);
+        assertTrue(RegistryService.getInstance().getMetrics().getHistograms()
+                .containsKey("org.fcrepo.transform.TransformMetricsTest.triples"));
+    }
+
+    @Test
+    public void testTagLeavesOutParameters() {
+        assertEquals("text/turtle", TransformMetrics.tag(valueOf("text/turtle;charset=utf-8")));
+        assertNull(TransformMetrics.tag(null));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.ws.rs.core.HttpHeaders.RETRY_AFTER;
+import static javax.ws.rs.core.Response.Status.OK;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+import static javax.ws.rs.core.Response.ok;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.core.Response;
+
+import org.fcrepo.metrics.RegistryService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>TransformRequestExecutorTest class.</p>
+ *
+ * @author agent
+ */
+public class TransformRequestExecutorTest {
+
+    private TransformRequestExecutor testObj;
+
+    private ExecutorService requests;
+
+    private CountDownLatch started;
+
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() {
+        testObj = new TransformRequestExecutor(1, 1);
+        requests = Executors.newCachedThreadPool();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        requests.shutdownNow();
+    }
+
+    @Test
+    public void testRespond() {
+        final Response built = ok("result").build();
+        assertSame(built, testObj.respond(() -> built));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRespondWithException() {
+        testObj.respond(() -> {
+            throw new IllegalStateException("failed");
+        });
+    }
+
+    @Test
+    public void testRejectWhenQueueIsFull() throws Exception {
+        final Future<Response> running = requests.submit(() -> testObj.respond(this::block));
+        assertTrue(started.await(5, SECONDS));
+
+        final Future<Response> queued = requests.submit(() -> testObj.respond(() -> ok().build()));
+        while (testObj.getQueueDepth() == 0) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, RegistryService.getInstance().getMetrics().getGauges()
+                .get("org.fcrepo.transform.TransformRequestExecutor.queued").getValue());
+
+        final Response rejected = testObj.respond(() -> ok().build());
+        assertEquals(SERVICE_UNAVAILABLE.getStatusCode(), rejected.getStatus());
+        assertEquals(TransformRequestExecutor.RETRY_AFTER_SECONDS, rejected.getHeaders().getFirst(RETRY_AFTER));
+
+        release.countDown();
+        assertEquals(OK.getStatusCode(), running.get(5, SECONDS).getStatus());
+        assertEquals(OK.getStatusCode(), queued.get(5, SECONDS).getStatus());
+        assertEquals(OK.getStatusCode(), testObj.respond(() -> ok().build()).getStatus());
+    }
+
+    private Response block() {
+        started.countDown();
+        try {
+            release.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return ok().build();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.backend;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createProperty;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createResource;
+import static org.junit.Assert.assertEquals;
+
+import java.util.stream.Stream;
+
+import org.fcrepo.transform.LDPathBudgetExceededException;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+
+/**
+ * <p>BudgetedBackendTest class.</p>
+ *
+ * @author agent
+ */
+public class BudgetedBackendTest {
+
+    private static final Resource SUBJECT = createResource("info:fedora/subject");
+
+    private static final Property HAS_PART = createProperty("info:fedora/hasPart");
+
+    private RdfStreamBackend backend;
+
+    @Before
+    public void setUp() {
+        backend = new RdfStreamBackend(Stream.of(
+                create(SUBJECT.asNode(), HAS_PART.asNode(), createURI("info:fedora/a")),
+                create(SUBJECT.asNode(), HAS_PART.asNode(), createURI("info:fedora/b"))));
+    }
+
+    @Test
+    public void testCountsVisits() {
+        final BudgetedBackend testObj = new BudgetedBackend(backend, 0, 0);
+        assertEquals(2, testObj.listObjects(SUBJECT, HAS_PART).size());
+        assertEquals(1, testObj.listSubjects(HAS_PART, createResource("info:fedora/a")).size());
+        assertEquals(5, testObj.getVisits());
+    }
+
+    @Test(expected = LDPathBudgetExceededException.class)
+    public void testTooManyVisits() {
+        final BudgetedBackend testObj = new BudgetedBackend(backend, 0, 4);
+        testObj.listObjects(SUBJECT, HAS_PART);
+        testObj.listObjects(SUBJECT, HAS_PART);
+    }
+
+    @Test(expected = LDPathBudgetExceededException.class)
+    public void testTooLong() throws InterruptedException {
+        final BudgetedBackend testObj = new BudgetedBackend(backend, 1, 0);
+        testObj.listObjects(SUBJECT, HAS_PART);
+        Thread.sleep(5);
+        testObj.listObjects(SUBJECT, HAS_PART);
+    }
+
+    @Test
+    public void testPausedTimeDoesNotCount() throws InterruptedException {
+        final BudgetedBackend testObj = new BudgetedBackend(backend, 50, 0);
+        testObj.resume();
+        testObj.listObjects(SUBJECT, HAS_PART);
+        testObj.pause();
+        Thread.sleep(100);
+        testObj.resume();
+        testObj.listObjects(SUBJECT, HAS_PART);
+        testObj.pause();
+    }
+}
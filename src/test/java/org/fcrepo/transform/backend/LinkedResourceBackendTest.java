@@ -0,0 +1,179 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.backend;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createAnon;
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createProperty;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createResource;
+import static org.fcrepo.kernel.api.RdfLexicon.REPOSITORY_NAMESPACE;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.marmotta.ldpath.LDPath;
+import org.apache.marmotta.ldpath.exception.LDPathParseException;
+import org.fcrepo.transform.LDPathBudgetExceededException;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+
+/**
+ * <p>LinkedResourceBackendTest class.</p>
+ *
+ * @author agent
+ */
+public class LinkedResourceBackendTest {
+
+    private static final String DC = "http://purl.org/dc/elements/1.1/";
+
+    private static final Node HAS_PARENT = createURI(REPOSITORY_NAMESPACE + "hasParent");
+
+    private static final Resource OBJECT = createResource("info:fedora/a/b/c");
+
+    private static final String PROGRAM = "@prefix fedora : <" + REPOSITORY_NAMESPACE + "> ;\n" +
+            "title = dc:title :: xsd:string ;\n" +
+            "parentTitle = fedora:hasParent / dc:title :: xsd:string ;\n" +
+            "grandparentTitle = fedora:hasParent / fedora:hasParent / dc:title :: xsd:string ;\n" +
+            "parentCreator = fedora:hasParent / dc:creator / dc:title :: xsd:string ;\n" +
+            "parentPart = fedora:hasParent / dc:relation / dc:title :: xsd:string ;\n";
+
+    private List<Node> loads;
+
+    private LinkedResourceCache cache;
+
+    @Before
+    public void setUp() {
+        loads = new ArrayList<>();
+        cache = new LinkedResourceCache(this::load);
+    }
+
+    @Test
+    public void testReadNodesOfLinkedResourcesFromTheirDescriptions() throws LDPathParseException {
+        final Map<String, Collection<?>> fields = evaluate(1);
+        assertTrue(fields.get("parentCreator").contains("creator of b"));
+        assertTrue(fields.get("parentPart").contains("part of b"));
+        assertEquals(asList(createURI("info:fedora/a/b")), loads);
+    }
+
+    @Test(expected = LDPathBudgetExceededException.class)
+    public void testLinkedResourceLimit() throws LDPathParseException {
+        evaluate(backend(2, 1));
+    }
+
+    @Test
+    public void testLinkedResourceLimitIsPerEvaluation() throws LDPathParseException {
+        evaluate(backend(2, 2));
+        evaluate(backend(2, 2));
+        evaluate(backend(2, 2));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedDescriptionsAreDropped() throws LDPathParseException {
+        cache = new LinkedResourceCache(this::load, 1);
+        assertTrue(evaluate(2).get("grandparentTitle").contains("a"));
+        assertEquals(1, cache.size());
+        assertTrue(evaluate(2).get("grandparentTitle").contains("a"));
+        assertEquals(4, loads.size());
+    }
+
+    @Test
+    public void testFollowLinks() throws LDPathParseException {
+        final Map<String, Collection<?>> fields = evaluate(1);
+        assertEquals(1, fields.get("title").size());
+        assertTrue(fields.get("parentTitle").contains("b"));
+        assertTrue(fields.get("grandparentTitle").isEmpty());
+        assertEquals(1, cache.size());
+
+        assertTrue(evaluate(2).get("grandparentTitle").contains("a"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testLinkedResourcesAreLoadedOnce() throws LDPathParseException {
+        evaluate(2);
+        evaluate(2);
+        assertEquals(2, loads.size());
+    }
+
+    @Test
+    public void testReverseLinksSeeFollowedResources() {
+        final LinkedResourceBackend testObj = backend(1);
+        final Property hasParent = createProperty(HAS_PARENT.getURI());
+        assertTrue(testObj.listSubjects(hasParent, createResource("info:fedora/a")).isEmpty());
+
+        testObj.listObjects(OBJECT, hasParent);
+        testObj.listObjects(createResource("info:fedora/a/b"), createProperty(DC + "title"));
+        assertEquals(1, testObj.followedCount());
+        assertEquals(1, testObj.listSubjects(hasParent, createResource("info:fedora/a")).size());
+    }
+
+    private Stream<Triple> load(final Node node) {
+        loads.add(node);
+        switch (node.getURI()) {
+            case "info:fedora/a/b":
+                final Node creator = createAnon();
+                final Node part = createURI("info:fedora/a/b#part");
+                return Stream.of(create(node, createURI(DC + "title"), createLiteral("b")),
+                        create(node, HAS_PARENT, createURI("info:fedora/a")),
+                        create(node, createURI(DC + "creator"), creator),
+                        create(creator, createURI(DC + "title"), createLiteral("creator of b")),
+                        create(node, createURI(DC + "relation"), part),
+                        create(part, createURI(DC + "title"), createLiteral("part of b")));
+            case "info:fedora/a":
+                return Stream.of(create(node, createURI(DC + "title"), createLiteral("a")));
+            default:
+                return Stream.empty();
+        }
+    }
+
+    private Map<String, Collection<?>> evaluate(final int depth) throws LDPathParseException {
+        return evaluate(backend(depth));
+    }
+
+    private static Map<String, Collection<?>> evaluate(final LinkedResourceBackend backend)
+            throws LDPathParseException {
+        return new LDPath<>(backend).programQuery(OBJECT, new StringReader(PROGRAM));
+    }
+
+    private LinkedResourceBackend backend(final int depth) {
+        return backend(depth, 0);
+    }
+
+    private LinkedResourceBackend backend(final int depth, final int maxResources) {
+        final Triple[] triples = {
+            create(OBJECT.asNode(), createURI(DC + "title"), createLiteral("c")),
+            create(OBJECT.asNode(), HAS_PARENT, createURI("info:fedora/a/b"))
+        };
+        return new LinkedResourceBackend(new RdfStreamBackend(Stream.of(triples)), OBJECT, cache, depth, maxResources);
+    }
+}
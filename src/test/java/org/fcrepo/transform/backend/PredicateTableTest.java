@@ -0,0 +1,74 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.backend;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.hp.hpl.jena.graph.Node;
+
+/**
+ * <p>PredicateTableTest class.</p>
+ *
+ * @author agent
+ */
+public class PredicateTableTest {
+
+    @Test
+    public void testManyPredicates() {
+        final PredicateTable testObj = new PredicateTable();
+        for (int i = 0; i < 100; i++) {
+            testObj.add(createURI("info:predicate/" + i), createLiteral("a"));
+            testObj.add(createURI("info:predicate/" + i), createLiteral(String.valueOf(i)));
+        }
+        testObj.freeze();
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(new Node[] {createLiteral("a"), createLiteral(String.valueOf(i))},
+                    testObj.get(createURI("info:predicate/" + i)));
+        }
+        assertEquals(101, testObj.get(null).length);
+        assertEquals(0, testObj.get(createURI("info:predicate/other")).length);
+    }
+
+    @Test
+    public void testDuplicateObjects() {
+        final PredicateTable testObj = new PredicateTable();
+        final Node predicate = createURI("info:predicate");
+        for (int i = 0; i < 50; i++) {
+            testObj.add(predicate, createLiteral(String.valueOf(i % 20)));
+        }
+        testObj.add(createURI("info:other"), createLiteral("1"));
+        testObj.add(createURI("info:other"), createLiteral("1"));
+        testObj.freeze();
+        assertEquals(20, testObj.get(predicate).length);
+        assertEquals(1, testObj.get(createURI("info:other")).length);
+        assertEquals(20, testObj.get(null).length);
+    }
+
+    @Test
+    public void testEmpty() {
+        final PredicateTable testObj = new PredicateTable().freeze();
+        assertTrue(testObj.isEmpty());
+        assertEquals(0, testObj.get(null).length);
+    }
+}
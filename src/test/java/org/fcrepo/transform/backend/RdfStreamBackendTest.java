@@ -0,0 +1,139 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.backend;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createProperty;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createResource;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.marmotta.ldpath.LDPath;
+import org.apache.marmotta.ldpath.backend.jena.GenericJenaBackend;
+import org.apache.marmotta.ldpath.exception.LDPathParseException;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.Resource;
+
+/**
+ * <p>RdfStreamBackendTest class.</p>
+ *
+ * @author agent
+ */
+public class RdfStreamBackendTest {
+
+    private static final String DC = "http://purl.org/dc/elements/1.1/";
+
+    private static final String LDP = "http://www.w3.org/ns/ldp#";
+
+    private static final Resource PARENT = createResource("info:fedora/parent");
+
+    private Triple[] triples;
+
+    private RdfStreamBackend testObj;
+
+    @Before
+    public void setUp() {
+        triples = new Triple[] {
+            create(PARENT.asNode(), createURI(DC + "title"), createLiteral("a title")),
+            create(PARENT.asNode(), createURI(DC + "title"), createLiteral("a title")),
+            create(PARENT.asNode(), createURI(DC + "subject"), createLiteral("a subject")),
+            create(PARENT.asNode(), createURI(LDP + "contains"), createURI("info:fedora/parent/a")),
+            create(PARENT.asNode(), createURI(LDP + "contains"), createURI("info:fedora/parent/b")),
+            create(createURI("info:fedora/parent/a"), createURI(DC + "title"), createLiteral("child a"))
+        };
+        testObj = new RdfStreamBackend(PARENT.asNode(), Stream.of(triples));
+    }
+
+    @Test
+    public void testListObjects() {
+        final Collection<RDFNode> titles = testObj.listObjects(PARENT, createProperty(DC + "title"));
+        assertEquals("Duplicate triples should be collapsed", 1, titles.size());
+        assertEquals("a title", testObj.stringValue(titles.iterator().next()));
+        assertEquals(2, testObj.listObjects(PARENT, createProperty(LDP + "contains")).size());
+        assertEquals(2, testObj.subjectCount());
+    }
+
+    @Test
+    public void testListObjectsWithoutTopic() {
+        final RdfStreamBackend general = new RdfStreamBackend(Stream.of(triples));
+        assertEquals(1, general.listObjects(PARENT, createProperty(DC + "title")).size());
+        assertEquals(4, general.listObjects(PARENT, null).size());
+        assertEquals(testObj.tripleCount(), general.tripleCount());
+        assertEquals(testObj.subjectCount(), general.subjectCount());
+        assertTrue(general.describes(PARENT.asNode()) && testObj.describes(PARENT.asNode()));
+    }
+
+    @Test
+    public void testListObjectsWithWildcard() {
+        assertEquals(4, testObj.listObjects(PARENT, null).size());
+    }
+
+    @Test
+    public void testListObjectsOfUnknownNodes() {
+        assertTrue(testObj.listObjects(createResource("info:fedora/other"), null).isEmpty());
+        assertTrue(testObj.listObjects(PARENT, createProperty(DC + "creator")).isEmpty());
+    }
+
+    @Test
+    public void testListSubjects() {
+        final Collection<RDFNode> parents =
+                testObj.listSubjects(createProperty(LDP + "contains"), createResource("info:fedora/parent/b"));
+        assertEquals(1, parents.size());
+        assertEquals(PARENT, parents.iterator().next());
+        assertTrue(testObj.listSubjects(createProperty(DC + "title"), createResource("info:fedora/parent/b"))
+                .isEmpty());
+    }
+
+    @Test
+    public void testProgramsMatchModelBackend() throws LDPathParseException {
+        final String program = "@prefix ldp : <" + LDP + "> ;\n" +
+                "title = dc:title :: xsd:string ;\n" +
+                "children = ldp:contains :: xsd:anyURI ;\n" +
+                "childTitles = ldp:contains / dc:title :: xsd:string ;\n" +
+                "everything = * :: xsd:string ;\n" +
+                "parents = ^ldp:contains :: xsd:anyURI ;\n";
+
+        final Model model = createDefaultModel();
+        Stream.of(triples).forEach(triple -> model.getGraph().add(triple));
+
+        final Map<String, Collection<?>> expected = new LDPath<>(new GenericJenaBackend(model))
+                .programQuery(PARENT, new StringReader(program));
+        final Map<String, Collection<?>> actual = new LDPath<>(testObj)
+                .programQuery(PARENT, new StringReader(program));
+
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((field, values) ->
+                assertEquals(field, values.stream().map(String::valueOf).sorted().collect(toList()),
+                        actual.get(field).stream().map(String::valueOf).sorted().collect(toList())));
+        assertTrue(actual.get("childTitles").contains("child a"));
+    }
+}
@@ -18,7 +18,11 @@
 package org.fcrepo.transform.http;
 
 import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.stream.Stream.empty;
+import static java.util.stream.Stream.of;
 import static org.apache.jena.riot.WebContent.contentTypeSPARQLQuery;
 import static org.fcrepo.kernel.api.RequiredRdfContext.LDP_CONTAINMENT;
 import static org.fcrepo.kernel.api.RequiredRdfContext.LDP_MEMBERSHIP;
@@ -27,33 +31,79 @@ import static org.fcrepo.kernel.api.RequiredRdfContext.SERVER_MANAGED;
 import static org.fcrepo.http.commons.test.util.TestHelpers.getUriInfoImpl;
 import static org.fcrepo.http.commons.test.util.TestHelpers.mockSession;
 import static org.mockito.Matchers.any;
+import static javax.ws.rs.core.HttpHeaders.VARY;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.NOT_MODIFIED;
+import static javax.ws.rs.core.Response.Status.OK;
+import static org.fcrepo.kernel.api.utils.ContentDigest.asURI;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.springframework.test.util.ReflectionTestUtils.setField;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 import javax.jcr.Node;
 import javax.jcr.Session;
+import javax.jcr.RepositoryException;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
+import org.apache.marmotta.ldpath.model.programs.Program;
+import org.fcrepo.http.commons.domain.MultiPrefer;
 import org.fcrepo.kernel.api.RdfStream;
+import org.fcrepo.kernel.api.RequiredRdfContext;
+import org.fcrepo.kernel.api.exception.PathNotFoundRuntimeException;
 import org.fcrepo.kernel.api.identifiers.IdentifierConverter;
 import org.fcrepo.kernel.api.rdf.DefaultRdfStream;
 import org.fcrepo.kernel.api.services.NodeService;
 import org.fcrepo.kernel.modeshape.FedoraResourceImpl;
+import org.fcrepo.metrics.RegistryService;
+import org.fcrepo.transform.TransformNotFoundException;
+import org.fcrepo.transform.TransformRequestExecutor;
+import org.fcrepo.transform.TransformWorkerPool;
 import org.fcrepo.transform.Transformation;
 import org.fcrepo.transform.TransformationFactory;
+import org.fcrepo.transform.backend.LinkedResourceCache;
+import org.fcrepo.transform.backend.RdfStreamBackend;
+import org.fcrepo.transform.transformations.LDPathProgramIndex;
+import org.fcrepo.transform.transformations.LDPathResult;
+import org.fcrepo.transform.transformations.LDPathTransform;
+import org.glassfish.jersey.uri.PathTemplate;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.Resource;
+
 /**
  * <p>FedoraTransformTest class.</p>
  *
@@ -82,6 +132,12 @@ public class FedoraTransformTest {
     @Mock
     Transformation<Object> mockTransform;
 
+    @Mock
+    private LDPathProgramIndex mockProgramIndex;
+
+    @Mock
+    private LDPathTransform mockLdpathTransform;
+
     @Before
     public void setUp() {
         initMocks(this);
@@ -123,10 +179,272 @@ public class FedoraTransformTest {
         when(mockTransformationFactory.getTransform(MediaType.valueOf(contentTypeSPARQLQuery), query)).thenReturn(
                 mockTransform);
 
-        testObj.evaluateTransform(MediaType.valueOf(contentTypeSPARQLQuery), query);
+        testObj.evaluateTransform(MediaType.valueOf(contentTypeSPARQLQuery), null, null, query);
 
         verify(mockTransform).apply(any(RdfStream.class));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvaluateLdpathProgramBatch() throws IOException, RepositoryException {
+        setField(testObj, "programIndex", mockProgramIndex);
+        when(mockResource.getTriples(any(IdentifierConverter.class), any(RequiredRdfContext.class)))
+            .thenAnswer(invocation -> new DefaultRdfStream(createURI("abc"), empty()));
+        doReturn(mockResource).when(testObj).getResourceFromPath("testObject/a");
+        doReturn(mockResource).when(testObj).getResourceFromPath("other");
+        doThrow(new PathNotFoundRuntimeException(new RepositoryException("not found")))
+            .when(testObj).getResourceFromPath("testObject/b");
+        when(mockProgramIndex.getResourceTransform(mockResource, mockSession, mockNodeService, "default"))
+            .thenReturn(mockLdpathTransform);
+        when(mockLdpathTransform.getRequiredPredicates()).thenReturn(Optional.empty());
+        final Program<RDFNode> program = mock(Program.class);
+        when(mockLdpathTransform.evaluate(any(RdfStream.class)))
+            .thenReturn(new LDPathResult(program, null, null));
+
+        final InputStream paths = new ByteArrayInputStream("a\n\nb\n/other\n".getBytes(UTF_8));
+        final StreamingOutput output =
+                (StreamingOutput) testObj.evaluateLdpathProgramBatch("default", false, true, 0, paths).getEntity();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.write(out);
+
+        final String[] lines = new String(out.toByteArray(), UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"path\":\"a\",\"result\":{}}", lines[0]);
+        assertTrue(lines[1].startsWith("{\"path\":\"b\",\"error\":"));
+        assertEquals("{\"path\":\"/other\",\"result\":{}}", lines[2]);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvaluateLdpathProgramBatchFollowingLinksInParallel() throws IOException, RepositoryException {
+        final TransformWorkerPool workerPool = spy(new TransformWorkerPool(2));
+        setField(testObj, "workerPool", workerPool);
+        setField(testObj, "programIndex", mockProgramIndex);
+        when(mockResource.getTriples(any(IdentifierConverter.class), any(RequiredRdfContext.class)))
+            .thenAnswer(invocation -> new DefaultRdfStream(createURI("abc"), empty()));
+        doReturn(mockResource).when(testObj).getResourceFromPath("testObject/a");
+        when(mockProgramIndex.getResourceTransform(mockResource, mockSession, mockNodeService, "default"))
+            .thenReturn(mockLdpathTransform);
+        when(mockLdpathTransform.getRequiredPredicates()).thenReturn(Optional.empty());
+        final Program<RDFNode> program = mock(Program.class);
+        when(mockLdpathTransform.evaluate(any(RdfStream.class), any(LinkedResourceCache.class), eq(1)))
+            .thenReturn(new LDPathResult(program, null, null));
+
+        try {
+            final InputStream paths = new ByteArrayInputStream("a\na\n".getBytes(UTF_8));
+            final StreamingOutput output =
+                    (StreamingOutput) testObj.evaluateLdpathProgramBatch("default", true, true, 1, paths).getEntity();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            output.write(out);
+
+            assertEquals("{\"path\":\"a\",\"result\":{}}\n{\"path\":\"a\",\"result\":{}}\n",
+                    new String(out.toByteArray(), UTF_8));
+            verify(workerPool, never()).getExecutor();
+        } finally {
+            workerPool.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvaluateLdpathProgramSubtree() throws IOException, RepositoryException {
+        setField(testObj, "programIndex", mockProgramIndex);
+        final FedoraResourceImpl mockChild = mock(FedoraResourceImpl.class);
+        when(mockChild.getPath()).thenReturn("/testObject/child");
+        when(mockChild.getChildren()).thenAnswer(invocation -> empty());
+        when(mockResource.getChildren()).thenAnswer(invocation -> of(mockChild));
+        when(mockResource.getTriples(any(IdentifierConverter.class), any(RequiredRdfContext.class)))
+            .thenAnswer(invocation -> new DefaultRdfStream(createURI("abc"), empty()));
+        when(mockChild.getTriples(any(IdentifierConverter.class), any(RequiredRdfContext.class)))
+            .thenAnswer(invocation -> new DefaultRdfStream(createURI("abc/child"), empty()));
+        when(mockProgramIndex.getResourceTransform(mockResource, mockSession, mockNodeService, "default"))
+            .thenReturn(mockLdpathTransform);
+        when(mockProgramIndex.getResourceTransform(mockChild, mockSession, mockNodeService, "default"))
+            .thenThrow(new TransformNotFoundException("no program"));
+        when(mockLdpathTransform.getRequiredPredicates()).thenReturn(Optional.empty());
+        final Program<RDFNode> program = mock(Program.class);
+        when(mockLdpathTransform.evaluate(any(RdfStream.class)))
+            .thenReturn(new LDPathResult(program, null, null));
+
+        final StreamingOutput output =
+                (StreamingOutput) testObj.evaluateLdpathProgramSubtree("default", -1, false, true, 0).getEntity();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.write(out);
+
+        final String[] lines = new String(out.toByteArray(), UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"path\":\"/testObject\",\"result\":{}}", lines[0]);
+        assertEquals("{\"path\":\"/testObject/child\",\"error\":\"no program\"}", lines[1]);
+    }
+
+    @Test
+    public void testStoredQueryNamedSubtreeIsNotShadowed() throws NoSuchMethodException {
+        final PathTemplate subtree = new PathTemplate(FedoraTransform.class.getMethod("evaluateLdpathProgramSubtree",
+                String.class, int.class, boolean.class, boolean.class, int.class).getAnnotation(Path.class).value());
+        final PathTemplate sparql = new PathTemplate(FedoraTransform.class.getMethod("evaluateSparqlQuery",
+                String.class, Long.class, Long.class).getAnnotation(Path.class).value());
+        assertTrue(subtree.match("/default/subtree", new HashMap<>()));
+        assertFalse(subtree.match("/sparql/subtree", new HashMap<>()));
+        assertTrue(sparql.match("/sparql/subtree", new HashMap<>()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvaluateLdpathProgramNotModified() throws RepositoryException {
+        final Request mockRequest = mockConditionalRequest();
+        when(mockRequest.evaluatePreconditions(any(EntityTag.class)))
+            .thenReturn(Response.notModified());
+
+        final Response response = testObj.evaluateLdpathProgram("default", 0);
+
+        assertEquals(NOT_MODIFIED.getStatusCode(), response.getStatus());
+        assertEquals(response.getEntityTag(), etagOf(mockRequest));
+        verify(mockLdpathTransform, never()).evaluate(any(RdfStream.class));
+        verify(mockResource, never()).getTriples(any(IdentifierConverter.class), any(RequiredRdfContext.class));
+        assertFalse("Metrics should not be named for what the client asked for",
+                RegistryService.getInstance().getMetrics().getNames().stream()
+                    .anyMatch(name -> name.startsWith(FedoraTransform.class.getName()) && name.endsWith("default")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvaluateLdpathProgramModified() throws RepositoryException {
+        final Request mockRequest = mockConditionalRequest();
+        when(mockResource.getTriples(any(IdentifierConverter.class), any(RequiredRdfContext.class)))
+            .thenAnswer(invocation -> new DefaultRdfStream(createURI("abc"), empty()));
+        when(mockLdpathTransform.getRequiredPredicates()).thenReturn(Optional.empty());
+        final LDPathResult result = new LDPathResult(mock(Program.class), null, null);
+        when(mockLdpathTransform.evaluate(any(RdfStream.class))).thenReturn(result);
+
+        final Response response = testObj.evaluateLdpathProgram("default", 0);
+
+        assertEquals(OK.getStatusCode(), response.getStatus());
+        assertSame(result, response.getEntity());
+        assertEquals(response.getEntityTag(), etagOf(mockRequest));
+        assertFalse(response.getEntityTag().isWeak());
+        assertNull("Only the tag should tell versions apart", response.getLastModified());
+        assertEquals("Prefer", response.getHeaderString(VARY));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvaluateLdpathProgramTaggedByPreference() throws RepositoryException {
+        final Request mockRequest = mockConditionalRequest();
+        when(mockRequest.evaluatePreconditions(any(EntityTag.class)))
+            .thenAnswer(invocation -> Response.notModified());
+        testObj.evaluateLdpathProgram("default", 0);
+        setField(testObj, "prefer", new MultiPrefer("return=representation; " +
+                "omit=\"http://www.w3.org/ns/ldp#PreferContainment\""));
+        testObj.evaluateLdpathProgram("default", 0);
+
+        final ArgumentCaptor<EntityTag> etags = ArgumentCaptor.forClass(EntityTag.class);
+        verify(mockRequest, times(2)).evaluatePreconditions(etags.capture());
+        assertNotEquals("Results read with other triples should be tagged apart",
+                etags.getAllValues().get(0), etags.getAllValues().get(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvaluateLdpathProgramFollowingLinks() throws RepositoryException {
+        final Request mockRequest = mockConditionalRequest();
+        when(mockResource.getTriples(any(IdentifierConverter.class), any(RequiredRdfContext.class)))
+            .thenAnswer(invocation -> new DefaultRdfStream(createURI("abc"), empty()));
+        when(mockLdpathTransform.getRequiredPredicates()).thenReturn(Optional.empty());
+        final LDPathResult result = new LDPathResult(mock(Program.class), null, null);
+        when(mockLdpathTransform.evaluate(any(RdfStream.class), any(LinkedResourceCache.class), eq(1)))
+            .thenReturn(result);
+
+        final Response response = testObj.evaluateLdpathProgram("default", 1);
+
+        assertEquals(OK.getStatusCode(), response.getStatus());
+        assertSame(result, response.getEntity());
+        assertNull("Results that follow links should not be tagged", response.getEntityTag());
+        verify(mockRequest, never()).evaluatePreconditions(any(EntityTag.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvaluateLdpathPrograms() throws RepositoryException, IOException {
+        setField(testObj, "programIndex", mockProgramIndex);
+        final LDPathTransform otherTransform = mock(LDPathTransform.class);
+        when(mockProgramIndex.getResourceTransform(mockResource, mockSession, mockNodeService, "default"))
+            .thenReturn(mockLdpathTransform);
+        when(mockProgramIndex.getResourceTransform(mockResource, mockSession, mockNodeService, "deluxe"))
+            .thenReturn(otherTransform);
+        when(mockResource.getTriples(any(IdentifierConverter.class), any(RequiredRdfContext.class)))
+            .thenAnswer(invocation -> new DefaultRdfStream(createURI("abc"), empty()));
+        when(mockLdpathTransform.getRequiredPredicates()).thenReturn(Optional.empty());
+        when(otherTransform.getRequiredPredicates()).thenReturn(Optional.empty());
+        when(mockLdpathTransform.evaluate(any(RdfStreamBackend.class), any(Resource.class), any(), eq(0)))
+            .thenReturn(new LDPathResult(mock(Program.class), null, null));
+        when(otherTransform.evaluate(any(RdfStreamBackend.class), any(Resource.class), any(), eq(0)))
+            .thenReturn(new LDPathResult(mock(Program.class), null, null));
+
+        final Response response = testObj.evaluateLdpathPrograms(asList("default", "deluxe", "default"), 0);
+
+        assertEquals(OK.getStatusCode(), response.getStatus());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        assertEquals("{\"default\":[{}],\"deluxe\":[{}]}", out.toString("UTF-8"));
+        final ArgumentCaptor<RdfStreamBackend> backend = ArgumentCaptor.forClass(RdfStreamBackend.class);
+        final ArgumentCaptor<RdfStreamBackend> otherBackend = ArgumentCaptor.forClass(RdfStreamBackend.class);
+        verify(mockLdpathTransform).evaluate(backend.capture(), any(Resource.class), any(), eq(0));
+        verify(otherTransform).evaluate(otherBackend.capture(), any(Resource.class), any(), eq(0));
+        assertSame("Both programs should be evaluated against one read of the resource",
+                backend.getValue(), otherBackend.getValue());
+        verify(mockProgramIndex).getResourceTransform(mockResource, mockSession, mockNodeService, "default");
+    }
+
+    @Test
+    public void testEvaluateLdpathProgramsWithoutProgram() throws RepositoryException {
+        final Response response = testObj.evaluateLdpathPrograms(emptyList(), 0);
+        assertEquals(BAD_REQUEST.getStatusCode(), response.getStatus());
+        verify(mockResource, never()).getTriples(any(IdentifierConverter.class), any(RequiredRdfContext.class));
+    }
+
+    private Request mockConditionalRequest() throws RepositoryException {
+        final Request mockRequest = mock(Request.class);
+        setField(testObj, "request", mockRequest);
+        setField(testObj, "programIndex", mockProgramIndex);
+        when(mockResource.getEtagValue()).thenReturn("etag");
+        when(mockProgramIndex.getResourceTransform(mockResource, mockSession, mockNodeService, "default"))
+            .thenReturn(mockLdpathTransform);
+        when(mockLdpathTransform.getProgramDigest()).thenReturn(asURI("SHA-1", "abc"));
+        return mockRequest;
+    }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEvaluateTransformOnRequestExecutor() {
+        final TransformRequestExecutor requestExecutor = spy(new TransformRequestExecutor(1, 1));
+        setField(testObj, "requestExecutor", requestExecutor);
+        final boolean[] read = new boolean[1];
+        when(mockResource.getTriples(any(IdentifierConverter.class), any(RequiredRdfContext.class)))
+            .thenAnswer(invocation -> {
+                read[0] = true;
+                return new DefaultRdfStream(createURI("abc"), of(
+                        new Triple(createURI("abc"), createURI("info:p"), createURI("info:o"))));
+            });
+        final InputStream query = new ByteArrayInputStream("SELECT * WHERE { ?s ?p ?o }".getBytes(UTF_8));
+        when(mockTransformationFactory.getTransform(MediaType.valueOf(contentTypeSPARQLQuery), query)).thenReturn(
+                mockTransform);
+        when(mockTransform.apply(any(RdfStream.class))).thenReturn("result");
+        doAnswer(invocation -> {
+            assertFalse("Triples should not be read before the request has its turn", read[0]);
+            return invocation.callRealMethod();
+        }).when(requestExecutor).respond(any(Supplier.class));
+
+        final Response response =
+                testObj.evaluateTransform(MediaType.valueOf(contentTypeSPARQLQuery), null, null, query);
+
+        assertEquals("result", response.getEntity());
+        assertTrue(read[0]);
+        verify(requestExecutor).respond(any(Supplier.class));
+    }
+
+    private static EntityTag etagOf(final Request mockRequest) {
+        final ArgumentCaptor<EntityTag> etag = ArgumentCaptor.forClass(EntityTag.class);
+        verify(mockRequest).evaluatePreconditions(etag.capture());
+        return etag.getValue();
+    }
 }
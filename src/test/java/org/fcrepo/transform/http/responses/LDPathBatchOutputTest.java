@@ -0,0 +1,124 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.http.responses;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static java.util.stream.Stream.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.marmotta.ldpath.LDPath;
+import org.apache.marmotta.ldpath.backend.jena.GenericJenaBackend;
+import org.apache.marmotta.ldpath.exception.LDPathParseException;
+import org.fcrepo.kernel.api.rdf.DefaultRdfStream;
+import org.fcrepo.transform.TransformNotFoundException;
+import org.fcrepo.transform.TransformWorkerPool;
+import org.fcrepo.transform.transformations.LDPathResult;
+import org.fcrepo.transform.transformations.LDPathTransform;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>LDPathBatchOutputTest class.</p>
+ *
+ * @author agent
+ */
+public class LDPathBatchOutputTest {
+
+    private final TransformWorkerPool pool = new TransformWorkerPool(4);
+
+    private final List<String> paths = range(0, 50).mapToObj(i -> "book" + i).collect(toList());
+
+    private LDPathTransform transform;
+
+    private Function<String, LDPathResult> evaluate;
+
+    @Before
+    public void setUp() throws LDPathParseException {
+        transform = new LDPathTransform(new LDPath<>(new GenericJenaBackend(createDefaultModel()))
+                .parseProgram(new StringReader("title = dc:title :: xsd:string ;")));
+        evaluate = path -> {
+            if (path.equals("book7")) {
+                throw new TransformNotFoundException("no program for book7");
+            }
+            return transform.evaluate(new DefaultRdfStream(createURI("info:" + path), of(
+                    create(createURI("info:" + path), createURI("http://purl.org/dc/elements/1.1/title"),
+                            createLiteral("Title of " + path)))));
+        };
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        final List<String> lines = lines(new LDPathBatchOutput<>(paths, identity(), evaluate));
+        assertEquals(50, lines.size());
+        assertEquals("{\"path\":\"book0\",\"result\":{\"title\":[\"Title of book0\"]}}", lines.get(0));
+        assertEquals("{\"path\":\"book7\",\"error\":\"no program for book7\"}", lines.get(7));
+    }
+
+    @Test
+    public void testWriteInParallelInOrder() throws IOException {
+        final List<String> sequential = lines(new LDPathBatchOutput<>(paths, identity(), evaluate));
+        final List<String> parallel =
+                lines(new LDPathBatchOutput<>(paths, identity(), evaluate, pool.getExecutor(), 8, true));
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testWriteInParallelAsReady() throws IOException {
+        final List<String> sequential = lines(new LDPathBatchOutput<>(paths, identity(), evaluate));
+        final List<String> parallel =
+                lines(new LDPathBatchOutput<>(paths, identity(), evaluate, pool.getExecutor(), 8, false));
+        assertEquals(sequential.stream().sorted().collect(toList()), parallel.stream().sorted().collect(toList()));
+    }
+
+    @Test
+    public void testWriteInParallelReportsFailedEvaluation() throws IOException {
+        final Function<String, LDPathResult> failing = path -> new LDPathResult(transform.evaluate(
+                new DefaultRdfStream(createURI("info:" + path), of())).getProgram(), null, null);
+        final List<String> lines =
+                lines(new LDPathBatchOutput<>(asList("a", "b"), identity(), failing, pool.getExecutor(), 2, true));
+        assertEquals(2, lines.size());
+        assertNotEquals(-1, lines.get(0).indexOf("\"error\""));
+    }
+
+    private static List<String> lines(final LDPathBatchOutput<String> output) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.write(out);
+        return asList(new String(out.toByteArray(), UTF_8).split("\n"));
+    }
+}
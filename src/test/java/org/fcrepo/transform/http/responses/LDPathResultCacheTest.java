@@ -0,0 +1,143 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.http.responses;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Stream.of;
+import static org.fcrepo.kernel.api.RequiredRdfContext.PROPERTIES;
+import static org.fcrepo.kernel.api.RequiredRdfContext.SERVER_MANAGED;
+import static org.fcrepo.kernel.api.utils.ContentDigest.asURI;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.StringReader;
+import java.net.URI;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.marmotta.ldpath.LDPath;
+import org.apache.marmotta.ldpath.backend.jena.GenericJenaBackend;
+import org.apache.marmotta.ldpath.exception.LDPathParseException;
+import org.fcrepo.kernel.api.RequiredRdfContext;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.kernel.api.rdf.DefaultRdfStream;
+import org.fcrepo.transform.transformations.LDPathResult;
+import org.fcrepo.transform.transformations.LDPathTransform;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>LDPathResultCacheTest class.</p>
+ *
+ * @author agent
+ */
+public class LDPathResultCacheTest {
+
+    private static final URI DIGEST = asURI("SHA-1", "abc");
+
+    private static final Set<RequiredRdfContext> CONTEXTS = EnumSet.of(PROPERTIES, SERVER_MANAGED);
+
+    @Mock
+    private FedoraResource mockResource;
+
+    private LDPathResultCache testObj;
+
+    private LDPathTransform transform;
+
+    private final AtomicInteger evaluations = new AtomicInteger();
+
+    private final Supplier<LDPathResult> evaluate = () -> {
+        evaluations.incrementAndGet();
+        return transform.evaluate(new DefaultRdfStream(createURI("info:book"), of(
+                create(createURI("info:book"), createURI("http://purl.org/dc/elements/1.1/title"),
+                        createLiteral("The Hobbit")))));
+    };
+
+    @Before
+    public void setUp() throws LDPathParseException {
+        initMocks(this);
+        testObj = new LDPathResultCache();
+        transform = new LDPathTransform(new LDPath<>(new GenericJenaBackend(createDefaultModel()))
+                .parseProgram(new StringReader("title = dc:title :: xsd:string ;")));
+        when(mockResource.getPath()).thenReturn("/book");
+        when(mockResource.getEtagValue()).thenReturn("etag1");
+    }
+
+    @Test
+    public void testResultIsEvaluatedOnce() {
+        final byte[] result = testObj.getResult(mockResource, CONTEXTS, DIGEST, evaluate);
+        assertEquals("[{\"title\":[\"The Hobbit\"]}]", new String(result, UTF_8));
+        assertSame(result, testObj.getResult(mockResource, CONTEXTS, DIGEST, evaluate));
+        assertEquals(1, evaluations.get());
+        assertEquals(1, testObj.size());
+    }
+
+    @Test
+    public void testModifiedResourceIsReevaluated() {
+        final byte[] result = testObj.getResult(mockResource, CONTEXTS, DIGEST, evaluate);
+        when(mockResource.getEtagValue()).thenReturn("etag2");
+        assertArrayEquals(result, testObj.getResult(mockResource, CONTEXTS, DIGEST, evaluate));
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    public void testChangedProgramIsReevaluated() {
+        testObj.getResult(mockResource, CONTEXTS, DIGEST, evaluate);
+        testObj.getResult(mockResource, CONTEXTS, asURI("SHA-1", "def"), evaluate);
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    public void testOtherContextsAreReevaluated() {
+        testObj.getResult(mockResource, CONTEXTS, DIGEST, evaluate);
+        testObj.getResult(mockResource, EnumSet.of(PROPERTIES), DIGEST, evaluate);
+        assertEquals(2, evaluations.get());
+        testObj.getResult(mockResource, EnumSet.of(SERVER_MANAGED, PROPERTIES), DIGEST, evaluate);
+        assertEquals(2, evaluations.get());
+    }
+
+    @Test
+    public void testWeightIsBounded() {
+        testObj = new LDPathResultCache(3 * LDPathResultCache.ENTRY_OVERHEAD);
+        for (int i = 0; i < 10; i++) {
+            when(mockResource.getPath()).thenReturn("/book" + i);
+            testObj.getResult(mockResource, CONTEXTS, DIGEST, evaluate);
+        }
+        assertTrue("Cache should have evicted results", testObj.size() < 3);
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        testObj.getResult(mockResource, CONTEXTS, DIGEST, evaluate);
+        testObj.invalidateAll();
+        assertEquals(0, testObj.size());
+        testObj.getResult(mockResource, CONTEXTS, DIGEST, evaluate);
+        assertEquals(2, evaluations.get());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.http.responses;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.graph.Triple.create;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Stream.of;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static javax.ws.rs.core.MediaType.TEXT_HTML_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.apache.marmotta.ldpath.LDPath;
+import org.apache.marmotta.ldpath.backend.jena.GenericJenaBackend;
+import org.apache.marmotta.ldpath.exception.LDPathParseException;
+import org.fcrepo.kernel.api.RdfStream;
+import org.fcrepo.kernel.api.rdf.DefaultRdfStream;
+import org.fcrepo.transform.transformations.LDPathResult;
+import org.fcrepo.transform.transformations.LDPathTransform;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * <p>LDPathResultProviderTest class.</p>
+ *
+ * @author agent
+ */
+public class LDPathResultProviderTest {
+
+    private static final String PROGRAM = "title = dc:title :: xsd:string ;\n" +
+            "count = fn:count(dc:title) :: xsd:int ;\n" +
+            "uri = . :: xsd:string ;\n" +
+            "title = dc:title[@en] :: xsd:string ;\n" +
+            "missing = dc:subject :: xsd:string ;";
+
+    private final LDPathResultProvider testObj = new LDPathResultProvider();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testWriteTo() throws IOException {
+        final JsonNode written = mapper.readTree(write(transform().evaluate(bookStream())));
+        final JsonNode expected = mapper.valueToTree(transform().apply(bookStream()));
+
+        assertEquals("Streamed results differ from the mapped results!", expected, written);
+    }
+
+    @Test
+    public void testWriteToKeepsLastFieldOfAName() throws IOException {
+        final JsonNode written = mapper.readTree(write(transform().evaluate(bookStream())));
+
+        assertEquals(1, written.size());
+        assertEquals("The Hobbit", written.get(0).get("title").get(0).asText());
+        assertEquals(1, written.get(0).get("title").size());
+        assertEquals(2, written.get(0).get("count").get(0).asInt());
+        assertEquals(0, written.get(0).get("missing").size());
+    }
+
+    @Test
+    public void testWriteToTwiceWithOneProgram() throws IOException {
+        final LDPathTransform transform = transform();
+        assertEquals(write(transform.evaluate(bookStream())), write(transform.evaluate(bookStream())));
+    }
+
+    @Test
+    public void testIsWriteable() {
+        assertTrue(testObj.isWriteable(LDPathResult.class, null, null, APPLICATION_JSON_TYPE));
+        assertFalse(testObj.isWriteable(LDPathResult.class, null, null, TEXT_HTML_TYPE));
+        assertFalse(testObj.isWriteable(List.class, null, null, APPLICATION_JSON_TYPE));
+    }
+
+    @Test
+    public void testGetSize() {
+        assertEquals(-1, testObj.getSize(null, null, null, null, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private String write(final LDPathResult result) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        testObj.writeTo(result, LDPathResult.class, null, null, APPLICATION_JSON_TYPE,
+                mock(MultivaluedMap.class), out);
+        return new String(out.toByteArray(), UTF_8);
+    }
+
+    private static LDPathTransform transform() throws IOException {
+        try {
+            return new LDPathTransform(new LDPath<>(new GenericJenaBackend(createDefaultModel()))
+                    .parseProgram(new StringReader(PROGRAM)));
+        } catch (final LDPathParseException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static RdfStream bookStream() {
+        return new DefaultRdfStream(createURI("http://example.org/book/book1"), of(
+                create(createURI("http://example.org/book/book1"),
+                        createURI("http://purl.org/dc/elements/1.1/title"),
+                        createLiteral("The Hobbit", "en", false)),
+                create(createURI("http://example.org/book/book1"),
+                        createURI("http://purl.org/dc/elements/1.1/title"),
+                        createLiteral("Der Hobbit", "de", false))));
+    }
+}
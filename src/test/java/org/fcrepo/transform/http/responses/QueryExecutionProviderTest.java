@@ -20,21 +20,45 @@ package org.fcrepo.transform.http.responses;
 import static com.hp.hpl.jena.graph.NodeFactory.createLiteral;
 import static com.hp.hpl.jena.graph.NodeFactory.createURI;
 import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static javax.ws.rs.core.MediaType.TEXT_HTML_TYPE;
 import static javax.ws.rs.core.MediaType.valueOf;
+import static javax.ws.rs.core.Response.Status.NOT_ACCEPTABLE;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
+import static org.apache.jena.riot.WebContent.contentTypeNTriples;
+import static org.apache.jena.riot.WebContent.contentTypeRDFXML;
 import static org.apache.jena.riot.WebContent.contentTypeResultsXML;
+import static org.apache.jena.riot.WebContent.contentTypeTextCSV;
+import static org.apache.jena.riot.WebContent.contentTypeTurtle;
 import static org.fcrepo.kernel.api.RdfLexicon.JCR_NAMESPACE;
 import static org.fcrepo.kernel.modeshape.rdf.JcrRdfTools.getRDFNamespaceForJcrNamespace;
+import static org.fcrepo.transform.http.responses.QueryExecutionProvider.TRUNCATED_WARNING;
+import static org.fcrepo.transform.http.responses.QueryExecutionProvider.WARNING;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Type;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MultivaluedMap;
 
+import org.apache.jena.atlas.RuntimeIOException;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.fcrepo.transform.transformations.SparqlExecutionLimits;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
@@ -43,10 +67,15 @@ import org.mockito.runners.MockitoJUnitRunner;
 import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.query.Dataset;
 import com.hp.hpl.jena.query.Query;
+import com.hp.hpl.jena.query.QueryCancelledException;
 import com.hp.hpl.jena.query.QueryExecution;
 import com.hp.hpl.jena.query.QueryExecutionFactory;
 import com.hp.hpl.jena.query.QueryFactory;
+import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.RDFNode;
 import com.hp.hpl.jena.sparql.core.DatasetImpl;
+import com.hp.hpl.jena.sparql.vocabulary.ResultSetGraphVocab;
 
 /**
  * <p>QueryExecutionProviderTest class.</p>
@@ -97,6 +126,201 @@ public class QueryExecutionProviderTest {
         }
     }
 
+    @Test
+    public void testWriteConstructAsTurtle() {
+        final Model model = writeGraph("PREFIX test: <test:> CONSTRUCT { ?x test:copy ?z } WHERE { ?x ?y ?z }",
+                contentTypeTurtle, Lang.TURTLE);
+        assertEquals("Constructed the wrong number of triples!", 2, model.size());
+        assertTrue("Couldn't find the constructed triple!", model.contains(model.createResource("test:subject"),
+                model.createProperty("test:copy"), "test:object"));
+    }
+
+    @Test
+    public void testWriteDescribeAsNTriples() {
+        final Model model = writeGraph("DESCRIBE <test:subject>", contentTypeNTriples, Lang.NTRIPLES);
+        assertEquals("Described the wrong number of triples!", 2, model.size());
+    }
+
+    @Test
+    public void testWriteConstructAsRdfXml() {
+        final Model model = writeGraph("CONSTRUCT WHERE { ?x <test:predicate> ?z }", contentTypeRDFXML,
+                Lang.RDFXML);
+        assertEquals("Constructed the wrong number of triples!", 1, model.size());
+    }
+
+    @Test(expected = WebApplicationException.class)
+    public void testWriteConstructAsResults() {
+        writeGraph("CONSTRUCT WHERE { ?x ?y ?z }", contentTypeResultsXML, Lang.TURTLE);
+    }
+
+    private Model writeGraph(final String query, final String mediaType, final Lang lang) {
+        try (final QueryExecution testResult = QueryExecutionFactory.create(query, testData)) {
+            final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            testObj.writeTo(testResult, QueryExecution.class, mock(Type.class),
+                    null, valueOf(mediaType), mockMultivaluedMap, outStream);
+            final Model model = createDefaultModel();
+            RDFDataMgr.read(model, new ByteArrayInputStream(outStream.toByteArray()), lang);
+            return model;
+        }
+    }
+
+    @Test
+    public void testNumberOrderedSelect() {
+        final Model model = writeGraph("SELECT ?z WHERE { ?x ?y ?z } ORDER BY ?z", contentTypeTurtle, Lang.TURTLE);
+        assertEquals("Numbered the wrong solutions!", 2,
+                model.listStatements(null, ResultSetGraphVocab.index, (RDFNode) null).toList().size());
+    }
+
+    @Test
+    public void testUnorderedSelectUnnumbered() {
+        final Model model = writeGraph("SELECT ?z WHERE { ?x ?y ?z }", contentTypeTurtle, Lang.TURTLE);
+        assertFalse("Numbered unordered solutions!", model.contains(null, ResultSetGraphVocab.index));
+    }
+
+    @Test
+    public void testTruncateSelect() {
+        try (final QueryExecution testResult = QueryExecutionFactory.create("SELECT ?x ?z WHERE { ?x ?y ?z }",
+                testData)) {
+            new SparqlExecutionLimits(0, 1).applyTo(testResult);
+            final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            testObj.writeTo(testResult, QueryExecution.class, mock(Type.class),
+                    null, valueOf(contentTypeTextCSV), mockMultivaluedMap, outStream);
+            final String[] lines = new String(outStream.toByteArray(), UTF_8).trim().split("\r?\n");
+            assertEquals("Wrote the wrong number of rows!", 2, lines.length);
+            verify(mockMultivaluedMap).add(WARNING, String.format(TRUNCATED_WARNING, 1));
+        }
+    }
+
+    @Test
+    public void testSelectWithinLimitIsNotMarked() {
+        try (final QueryExecution testResult = QueryExecutionFactory.create("SELECT ?x ?z WHERE { ?x ?y ?z }",
+                testData)) {
+            new SparqlExecutionLimits(0, 2).applyTo(testResult);
+            testObj.writeTo(testResult, QueryExecution.class, mock(Type.class),
+                    null, valueOf(contentTypeTextCSV), mockMultivaluedMap, new ByteArrayOutputStream());
+            verify(mockMultivaluedMap, never()).add(eq(WARNING), any());
+        }
+    }
+
+    @Test
+    public void testTruncateConstruct() {
+        try (final QueryExecution testResult = QueryExecutionFactory.create("CONSTRUCT WHERE { ?x ?y ?z }",
+                testData)) {
+            new SparqlExecutionLimits(0, 1).applyTo(testResult);
+            final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            testObj.writeTo(testResult, QueryExecution.class, mock(Type.class),
+                    null, valueOf(contentTypeNTriples), mockMultivaluedMap, outStream);
+            final Model model = createDefaultModel();
+            RDFDataMgr.read(model, new ByteArrayInputStream(outStream.toByteArray()), Lang.NTRIPLES);
+            assertEquals("Constructed the wrong number of triples!", 1, model.size());
+            verify(mockMultivaluedMap).add(WARNING, String.format(TRUNCATED_WARNING, 1));
+        }
+    }
+
+    @Test
+    public void testTruncateConstructWithoutStreamingWriter() {
+        try (final QueryExecution testResult = QueryExecutionFactory.create("CONSTRUCT WHERE { ?x ?y ?z }",
+                testData)) {
+            new SparqlExecutionLimits(0, 1).applyTo(testResult);
+            final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            testObj.writeTo(testResult, QueryExecution.class, mock(Type.class),
+                    null, valueOf(contentTypeRDFXML), mockMultivaluedMap, outStream);
+            final Model model = createDefaultModel();
+            RDFDataMgr.read(model, new ByteArrayInputStream(outStream.toByteArray()), Lang.RDFXML);
+            assertEquals("Constructed the wrong number of triples!", 1, model.size());
+            verify(mockMultivaluedMap).add(WARNING, String.format(TRUNCATED_WARNING, 1));
+        }
+    }
+
+    @Test
+    public void testTimedOut() {
+        final QueryExecution testResult = mock(QueryExecution.class);
+        when(testResult.execSelect()).thenThrow(new QueryCancelledException());
+        try {
+            testObj.writeTo(testResult, QueryExecution.class, mock(Type.class),
+                    null, valueOf(contentTypeResultsXML), mockMultivaluedMap, new ByteArrayOutputStream());
+            fail("A query that timed out should fail");
+        } catch (final WebApplicationException e) {
+            assertEquals(SERVICE_UNAVAILABLE.getStatusCode(), e.getResponse().getStatus());
+        }
+        verify(testResult).close();
+    }
+
+    @Test
+    public void testTimedOutAfterWriting() {
+        final Dataset largeData = new DatasetImpl(createDefaultModel());
+        for (int i = 0; i < 1000; i++) {
+            largeData.asDatasetGraph().getDefaultGraph().add(new Triple(createURI("test:subject" + i),
+                    createURI("test:predicate"), createLiteral("a long enough object to fill a buffer " + i)));
+        }
+        final Query query = QueryFactory.create("SELECT ?x ?z WHERE { ?x ?y ?z }");
+        final ResultSet results = spy(QueryExecutionFactory.create(query, largeData).execSelect());
+        doAnswer(invocation -> {
+            if (results.getRowNumber() >= 900) {
+                throw new QueryCancelledException();
+            }
+            return invocation.callRealMethod();
+        }).when(results).hasNext();
+
+        final QueryExecution testResult = mock(QueryExecution.class);
+        when(testResult.getQuery()).thenReturn(query);
+        when(testResult.execSelect()).thenReturn(results);
+        final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        try {
+            testObj.writeTo(testResult, QueryExecution.class, mock(Type.class),
+                    null, valueOf(contentTypeTextCSV), mockMultivaluedMap, outStream);
+            fail("A query that timed out should fail");
+        } catch (final WebApplicationException e) {
+            fail("A response that has begun cannot be given another status");
+        } catch (final QueryCancelledException e) {
+            assertTrue("Wrote nothing before the timeout!", outStream.size() > 0);
+        }
+        verify(testResult).close();
+    }
+
+    @Test
+    public void testAbortOnFailedWrite() {
+        final QueryExecution testResult = mock(QueryExecution.class);
+        when(testResult.execSelect()).thenThrow(new RuntimeIOException(new IOException("Broken pipe")));
+        try {
+            testObj.writeTo(testResult, QueryExecution.class, mock(Type.class),
+                    null, valueOf(contentTypeResultsXML), mockMultivaluedMap, new ByteArrayOutputStream());
+            fail("A failed write should fail");
+        } catch (final RuntimeIOException e) {
+            verify(testResult).abort();
+            verify(testResult).close();
+        }
+    }
+
+    @Test
+    public void testNotAcceptableIsNotAborted() {
+        final QueryExecution testResult = mock(QueryExecution.class);
+        when(testResult.getQuery()).thenReturn(QueryFactory.create("CONSTRUCT WHERE { ?x ?y ?z }"));
+        try {
+            testObj.writeTo(testResult, QueryExecution.class, mock(Type.class),
+                    null, valueOf(contentTypeResultsXML), mockMultivaluedMap, new ByteArrayOutputStream());
+            fail("A graph cannot be written as a table of results");
+        } catch (final WebApplicationException e) {
+            assertEquals(NOT_ACCEPTABLE.getStatusCode(), e.getResponse().getStatus());
+            verify(testResult, never()).abort();
+            verify(testResult).close();
+        }
+    }
+
+    @Test
+    public void testFailedQueryIsNotAborted() {
+        final QueryExecution testResult = mock(QueryExecution.class);
+        when(testResult.execSelect()).thenThrow(new IllegalStateException());
+        try {
+            testObj.writeTo(testResult, QueryExecution.class, mock(Type.class),
+                    null, valueOf(contentTypeResultsXML), mockMultivaluedMap, new ByteArrayOutputStream());
+            fail("A failed query should fail");
+        } catch (final IllegalStateException e) {
+            verify(testResult, never()).abort();
+            verify(testResult).close();
+        }
+    }
+
     @Test
     public void testGetSize() {
         assertEquals("Returned wrong size from QueryExecutionProvider!",
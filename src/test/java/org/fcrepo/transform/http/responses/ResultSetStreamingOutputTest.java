@@ -37,6 +37,7 @@ import static org.apache.jena.riot.WebContent.contentTypeResultsJSON;
 import static org.apache.jena.riot.WebContent.contentTypeResultsXML;
 import static org.apache.jena.riot.WebContent.contentTypeTextCSV;
 import static org.apache.jena.riot.WebContent.contentTypeTextTSV;
+import static org.apache.jena.riot.WebContent.contentTypeTurtle;
 import static org.apache.jena.riot.WebContent.contentTypeTurtleAlt2;
 import static org.fcrepo.kernel.api.RdfLexicon.JCR_NAMESPACE;
 import static org.fcrepo.kernel.modeshape.rdf.JcrRdfTools.getRDFNamespaceForJcrNamespace;
@@ -46,8 +47,11 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.MockitoAnnotations.initMocks;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -59,7 +63,12 @@ import com.hp.hpl.jena.query.QueryExecution;
 import com.hp.hpl.jena.query.QueryExecutionFactory;
 import com.hp.hpl.jena.query.QueryFactory;
 import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.query.ResultSetFormatter;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.RDFNode;
 import com.hp.hpl.jena.sparql.core.DatasetImpl;
+import com.hp.hpl.jena.sparql.resultset.RDFOutput;
+import com.hp.hpl.jena.sparql.vocabulary.ResultSetGraphVocab;
 
 import javax.ws.rs.core.MediaType;
 
@@ -135,6 +144,65 @@ public class ResultSetStreamingOutputTest {
         }
     }
 
+    @Test
+    public void testWriteWithTurtle() throws Exception {
+        assertStreamsResultSetGraph("SELECT ?x ?z WHERE { ?x ?y ?z }", contentTypeTurtle, Lang.TURTLE);
+    }
+
+    @Test
+    public void testWriteOrderedWithTurtle() throws Exception {
+        assertWritesResultSetGraph("SELECT ?z WHERE { ?x ?y ?z } ORDER BY DESC(?z)", contentTypeTurtle,
+                Lang.TURTLE, true);
+    }
+
+    @Test
+    public void testWriteOrderedWithRDFFormat() throws Exception {
+        assertWritesResultSetGraph("SELECT ?z WHERE { ?x ?y ?z } ORDER BY ?z", contentTypeRDFXML, Lang.RDFXML,
+                true);
+    }
+
+    @Test
+    public void testWriteWithNTriples() throws Exception {
+        assertStreamsResultSetGraph("SELECT ?x ?w WHERE { ?x ?y ?z OPTIONAL { ?z ?v ?w } }", contentTypeNTriples,
+                Lang.NTRIPLES);
+    }
+
+    private void assertStreamsResultSetGraph(final String query, final String mediaType, final Lang lang)
+            throws Exception {
+        final Model expected;
+        try (final QueryExecution testResult = QueryExecutionFactory.create(query, testData)) {
+            expected = ResultSetFormatter.toModel(testResult.execSelect());
+        }
+
+        try (final QueryExecution testResult = QueryExecutionFactory.create(query, testData);
+                final ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            testObj.writeTo(testResult.execSelect(), null, null, null, valueOf(mediaType), null, out);
+
+            final Model streamed = createDefaultModel();
+            RDFDataMgr.read(streamed, new ByteArrayInputStream(out.toByteArray()), lang);
+            assertTrue("Streamed results differ from the result set graph!", streamed.isIsomorphicWith(expected));
+        }
+    }
+
+    private void assertWritesResultSetGraph(final String query, final String mediaType, final Lang lang,
+            final boolean ordered) throws Exception {
+        final Model expected = createDefaultModel();
+        try (final QueryExecution testResult = QueryExecutionFactory.create(query, testData)) {
+            new RDFOutput().asRDF(expected, testResult.execSelect(), ordered);
+        }
+
+        try (final QueryExecution testResult = QueryExecutionFactory.create(query, testData);
+                final ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            testObj.writeTo(testResult.execSelect(), valueOf(mediaType), out, ordered);
+
+            final Model written = createDefaultModel();
+            RDFDataMgr.read(written, new ByteArrayInputStream(out.toByteArray()), lang);
+            assertTrue("Written results differ from the result set graph!", written.isIsomorphicWith(expected));
+            assertEquals("Numbered the wrong solutions!", ordered ? 2 : 0,
+                    written.listStatements(null, ResultSetGraphVocab.index, (RDFNode) null).toList().size());
+        }
+    }
+
     @Test
     public void testGetResultsFormat() {
         assertEquals(FMT_RS_TSV, getResultsFormat(valueOf(contentTypeTextTSV)));
@@ -0,0 +1,117 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static org.fcrepo.kernel.api.utils.ContentDigest.asURI;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.ByteArrayInputStream;
+
+import org.apache.marmotta.ldpath.model.programs.Program;
+import org.fcrepo.kernel.api.exception.RepositoryRuntimeException;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * <p>LDPathProgramCacheTest class.</p>
+ *
+ * @author agent
+ */
+public class LDPathProgramCacheTest {
+
+    private static final String PROGRAM_PATH = "/fedora:system/fedora:transform/fedora:ldpath/test/fedora:Resource";
+
+    @Mock
+    private FedoraBinary mockBinary;
+
+    private LDPathProgramCache testObj;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        testObj = new LDPathProgramCache(10);
+        when(mockBinary.getPath()).thenReturn(PROGRAM_PATH);
+        when(mockBinary.getContent()).thenAnswer(invocation ->
+                new ByteArrayInputStream("title = dc:title :: xsd:string ;".getBytes()));
+    }
+
+    @Test
+    public void testProgramIsCompiledOnce() {
+        when(mockBinary.getContentDigest()).thenReturn(asURI("SHA-1", "abc"));
+
+        final Program<RDFNode> program = testObj.getProgram(mockBinary);
+        assertNotNull(program.getField("title"));
+        assertSame(program, testObj.getProgram(mockBinary));
+        verify(mockBinary, times(1)).getContent();
+        assertEquals(1, testObj.size());
+    }
+
+    @Test
+    public void testChangedProgramIsRecompiled() {
+        when(mockBinary.getContentDigest()).thenReturn(asURI("SHA-1", "abc"));
+        final Program<RDFNode> program = testObj.getProgram(mockBinary);
+
+        when(mockBinary.getContentDigest()).thenReturn(asURI("SHA-1", "def"));
+        assertNotSame(program, testObj.getProgram(mockBinary));
+        assertEquals("Stale program should have been dropped", 1, testObj.size());
+    }
+
+    @Test
+    public void testProgramWithoutStoredDigest() {
+        final Program<RDFNode> program = testObj.getProgram(mockBinary);
+        assertSame(program, testObj.getProgram(mockBinary));
+    }
+
+    @Test
+    public void testInvalidate() {
+        when(mockBinary.getContentDigest()).thenReturn(asURI("SHA-1", "abc"));
+        final Program<RDFNode> program = testObj.getProgram(mockBinary);
+
+        testObj.invalidate(PROGRAM_PATH);
+        assertEquals(0, testObj.size());
+        assertNotSame(program, testObj.getProgram(mockBinary));
+    }
+
+    @Test
+    public void testGetDigest() {
+        when(mockBinary.getContentDigest()).thenReturn(asURI("SHA-1", "abc"));
+        final Program<RDFNode> program = testObj.getProgram(mockBinary);
+
+        assertEquals(asURI("SHA-1", "abc"), testObj.getDigest(program));
+        assertNull(testObj.getDigest(new Program<>()));
+    }
+
+    @Test(expected = RepositoryRuntimeException.class)
+    public void testUnparseableProgram() {
+        when(mockBinary.getContentDigest()).thenReturn(asURI("SHA-1", "bad"));
+        when(mockBinary.getContent()).thenReturn(new ByteArrayInputStream("title = = ;".getBytes()));
+        testObj.getProgram(mockBinary);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static java.util.Arrays.asList;
+import static org.fcrepo.kernel.api.utils.ContentDigest.asURI;
+import static org.fcrepo.transform.transformations.LDPathTransform.CONFIGURATION_FOLDER;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.stream.Stream;
+
+import javax.jcr.NamespaceRegistry;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Workspace;
+
+import org.fcrepo.kernel.api.models.Container;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.fcrepo.kernel.api.models.FedoraResource;
+import org.fcrepo.kernel.api.services.NodeService;
+import org.fcrepo.transform.TransformNotFoundException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+/**
+ * <p>LDPathProgramIndexTest class.</p>
+ *
+ * @author agent
+ */
+public class LDPathProgramIndexTest {
+
+    private static final String NS = "http://example.org/ns#";
+
+    private static final String KEY = "index-test";
+
+    @Mock
+    private FedoraResource mockResource;
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private Workspace mockWorkspace;
+
+    @Mock
+    private NamespaceRegistry mockRegistry;
+
+    @Mock
+    private NodeService mockNodeService;
+
+    @Mock
+    private Container mockConfigNode;
+
+    @Mock
+    private FedoraBinary mockFirstProgram;
+
+    @Mock
+    private FedoraBinary mockSecondProgram;
+
+    @Mock
+    private Container mockOtherChild;
+
+    private LDPathProgramIndex testObj;
+
+    @Before
+    public void setUp() throws RepositoryException {
+        initMocks(this);
+        testObj = new LDPathProgramIndex();
+
+        when(mockSession.getWorkspace()).thenReturn(mockWorkspace);
+        when(mockWorkspace.getNamespaceRegistry()).thenReturn(mockRegistry);
+        registerNamespaces(NS, "ex");
+
+        when(mockNodeService.find(mockSession, CONFIGURATION_FOLDER + KEY)).thenReturn(mockConfigNode);
+        when(mockConfigNode.getPath()).thenReturn(CONFIGURATION_FOLDER + KEY);
+        when(mockConfigNode.getChildren())
+                .thenAnswer(invocation -> Stream.of(mockOtherChild, mockFirstProgram, mockSecondProgram));
+
+        when(mockOtherChild.getPath()).thenReturn(CONFIGURATION_FOLDER + KEY + "/ex:Other");
+        mockProgram(mockFirstProgram, "ex:First", "first = dc:title :: xsd:string ;");
+        mockProgram(mockSecondProgram, "ex:Second", "second = dc:title :: xsd:string ;");
+    }
+
+    private static void mockProgram(final FedoraBinary binary, final String type, final String program) {
+        when(binary.getPath()).thenReturn(CONFIGURATION_FOLDER + KEY + "/" + type);
+        when(binary.getContentDigest()).thenReturn(asURI("SHA-1", "index-test-" + type));
+        when(binary.getContent()).thenAnswer(invocation -> new ByteArrayInputStream(program.getBytes()));
+    }
+
+    private void registerNamespaces(final String... namespacesAndPrefixes) throws RepositoryException {
+        final String[] uris = new String[namespacesAndPrefixes.length / 2];
+        final String[] prefixes = new String[uris.length];
+        for (int i = 0; i < uris.length; i++) {
+            uris[i] = namespacesAndPrefixes[2 * i];
+            prefixes[i] = namespacesAndPrefixes[2 * i + 1];
+            when(mockRegistry.getPrefix(uris[i])).thenReturn(prefixes[i]);
+        }
+        when(mockRegistry.getURIs()).thenReturn(uris);
+        when(mockRegistry.getPrefixes()).thenReturn(prefixes);
+    }
+
+    private LDPathTransform getTransform(final String... types) throws RepositoryException {
+        when(mockResource.getTypes()).thenReturn(asList(Stream.of(types).map(URI::create).toArray(URI[]::new)));
+        return testObj.getResourceTransform(mockResource, mockSession, mockNodeService, KEY);
+    }
+
+    @Test
+    public void testLookupByType() throws RepositoryException {
+        final LDPathTransform transform = getTransform(NS + "Second");
+        assertEquals(new LDPathTransform(LDPathTransform.PROGRAM_CACHE.getProgram(mockSecondProgram)), transform);
+    }
+
+    @Test
+    public void testFirstProgramInFolderWins() throws RepositoryException {
+        assertEquals(getTransform(NS + "First"), getTransform(NS + "Second", NS + "First"));
+    }
+
+    @Test
+    public void testChildrenAreReadOnce() throws RepositoryException {
+        getTransform(NS + "First");
+        getTransform(NS + "Second");
+        verify(mockConfigNode, times(1)).getChildren();
+    }
+
+    @Test
+    public void testInvalidate() throws RepositoryException {
+        getTransform(NS + "First");
+        testObj.invalidate(KEY);
+        getTransform(NS + "First");
+        verify(mockConfigNode, times(2)).getChildren();
+    }
+
+    @Test(expected = TransformNotFoundException.class)
+    public void testMissingProgram() throws RepositoryException {
+        getTransform(NS + "Third");
+    }
+
+    @Test(expected = TransformNotFoundException.class)
+    public void testNonBinaryChildIsNotAProgram() throws RepositoryException {
+        getTransform(NS + "Other");
+    }
+
+    @Test
+    public void testTypeWithoutNamespace() throws RepositoryException {
+        assertEquals(getTransform(NS + "First"), getTransform("http://example.com/Unmapped", NS + "First"));
+    }
+
+    @Test
+    public void testNamespacesAreIndexedOnce() throws RepositoryException {
+        getTransform(NS + "First");
+        getTransform(NS + "Second");
+        verify(mockRegistry, times(1)).getPrefix(NS);
+    }
+
+    @Test
+    public void testNewlyRegisteredNamespace() throws RepositoryException {
+        registerNamespaces();
+        try {
+            getTransform(NS + "First");
+        } catch (final TransformNotFoundException e) {
+            // the namespace isn't registered yet
+        }
+
+        registerNamespaces(NS, "ex");
+        testObj.invalidateNamespaces();
+        assertEquals(getTransform(NS + "First"), getTransform(NS + "First"));
+    }
+
+    @Test
+    public void testNamespacesAreKeptUntilInvalidated() throws RepositoryException {
+        getTransform(NS + "First");
+        registerNamespaces(NS, "other");
+        getTransform(NS + "First");
+        verify(mockRegistry, times(1)).getPrefix(NS);
+    }
+
+    @Test
+    public void testNewlyRegisteredLongerNamespace() throws RepositoryException {
+        registerNamespaces("http://example.org/", "org");
+        try {
+            getTransform(NS + "First");
+        } catch (final TransformNotFoundException e) {
+            // the type compacts to org:ns#First
+        }
+
+        registerNamespaces("http://example.org/", "org", NS, "ex");
+        testObj.invalidateNamespaces();
+        assertEquals(getTransform(NS + "First"), getTransform(NS + "First"));
+    }
+
+    @Test(expected = TransformNotFoundException.class)
+    public void testRemappedPrefix() throws RepositoryException {
+        getTransform(NS + "First");
+        registerNamespaces(NS, "other");
+        testObj.invalidateNamespaces();
+        getTransform(NS + "First");
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static com.hp.hpl.jena.graph.NodeFactory.createURI;
+import static com.hp.hpl.jena.vocabulary.RDF.type;
+import static org.fcrepo.transform.transformations.LDPathProjection.requiredPredicates;
+import static org.fcrepo.transform.transformations.LDPathTransform.parseProgram;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.marmotta.ldpath.api.backend.RDFBackend;
+import org.apache.marmotta.ldpath.api.functions.SelectorFunction;
+import org.apache.marmotta.ldpath.exception.LDPathParseException;
+import org.apache.marmotta.ldpath.model.programs.Program;
+import org.apache.marmotta.ldpath.model.selectors.FunctionSelector;
+import org.apache.marmotta.ldpath.model.tests.PathTest;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+
+/**
+ * <p>LDPathProjectionTest class.</p>
+ *
+ * @author agent
+ */
+public class LDPathProjectionTest {
+
+    private static final String DC = "http://purl.org/dc/elements/1.1/";
+
+    private static final String FEDORA = "http://fedora.info/definitions/v4/repository#";
+
+    private static Program<RDFNode> program(final String program) throws LDPathParseException {
+        return parseProgram(new ByteArrayInputStream(("@prefix fedora : <" + FEDORA + "> ;\n" +
+                "@prefix ldp : <http://www.w3.org/ns/ldp#> ;\n" + program).getBytes()));
+    }
+
+    @Test
+    public void testDefaultProgram() throws LDPathParseException {
+        final Program<RDFNode> program = parseProgram(getClass().getResourceAsStream(
+                "/ldpath/default/ldpath_program.txt"));
+        assertEquals(Optional.of(ImmutableSet.of(createURI(DC + "title"), createURI(FEDORA + "created"),
+                createURI(FEDORA + "lastModified"), createURI(FEDORA + "hasParent"))), requiredPredicates(program));
+    }
+
+    @Test
+    public void testPathsAndUnions() throws LDPathParseException {
+        final Set<Node> predicates = requiredPredicates(program(
+                "children = ldp:contains / (dc:title | dc:subject) :: xsd:string ;\n" +
+                "parents = ^ldp:contains :: xsd:anyURI ;")).get();
+        assertEquals(ImmutableSet.of(createURI("http://www.w3.org/ns/ldp#contains"), createURI(DC + "title"),
+                createURI(DC + "subject")), predicates);
+    }
+
+    @Test
+    public void testTypeTest() throws LDPathParseException {
+        final Set<Node> predicates = requiredPredicates(program(
+                "@filter is-a fedora:Container ;\n" +
+                "titles = dc:title[is-a fedora:Resource] :: xsd:string ;")).get();
+        assertTrue(predicates.contains(type.asNode()));
+        assertTrue(predicates.contains(createURI(DC + "title")));
+    }
+
+    @Test
+    public void testRecursion() throws LDPathParseException {
+        assertTrue(requiredPredicates(program("ancestors = (fedora:hasParent)* :: xsd:anyURI ;")).isPresent());
+    }
+
+    @Test
+    public void testCoreFunction() throws LDPathParseException {
+        assertTrue(requiredPredicates(program("title = fn:first(dc:title) :: xsd:string ;")).isPresent());
+    }
+
+    @Test
+    public void testStringConstant() throws LDPathParseException {
+        assertTrue(requiredPredicates(program("title = dc:title[. is \"*\"] :: xsd:string ;")).isPresent());
+    }
+
+    @Test
+    public void testWildcard() throws LDPathParseException {
+        assertFalse(requiredPredicates(program("all = * :: xsd:string ;")).isPresent());
+        assertFalse(requiredPredicates(program("all = (*)+ :: xsd:string ;")).isPresent());
+    }
+
+    @Test
+    public void testTestFunctionsAndComplexTests() throws LDPathParseException {
+        final Set<Node> predicates = requiredPredicates(program(
+                "@filter !is-a fedora:Binary & fn:gt(fedora:numberOfChildren, \"1\") ;\n" +
+                "titles = (dc:title & dc:alternative)[@en | dc:subject] :: xsd:string ;")).get();
+        assertEquals(ImmutableSet.of(type.asNode(), createURI(FEDORA + "numberOfChildren"),
+                createURI(DC + "subject"), createURI(DC + "title"), createURI(DC + "alternative")), predicates);
+    }
+
+    @Test
+    public void testUnboundedFunction() throws LDPathParseException {
+        final Program<RDFNode> program = program("title = dc:title :: xsd:string ;");
+        program.setFilter(new PathTest<>(new FunctionSelector<>(new SelectorFunction<RDFNode>() {
+
+            @Override
+            @SafeVarargs
+            public final Collection<RDFNode> apply(final RDFBackend<RDFNode> backend, final RDFNode context,
+                    final Collection<RDFNode>... args) {
+                return backend.listObjects(context, null);
+            }
+
+            @Override
+            public String getSignature() {
+                return "fn:everything() :: NodeList";
+            }
+
+            @Override
+            public String getDescription() {
+                return "Everything said about the context";
+            }
+
+            @Override
+            protected String getLocalName() {
+                return "everything";
+            }
+        }, emptyList())));
+        assertFalse(LDPathProjection.predicatesOf(program).isPresent());
+    }
+
+    @Test
+    public void testPartsAreReadable() {
+        assertEquals("LDPath has changed the selectors that projection reads", emptyList(),
+                LDPathProjection.missingParts());
+    }
+
+    @Test
+    public void testProjectionIsMemoized() throws LDPathParseException {
+        final Program<RDFNode> program = program("title = dc:title :: xsd:string ;");
+        assertSame(requiredPredicates(program), requiredPredicates(program));
+    }
+}
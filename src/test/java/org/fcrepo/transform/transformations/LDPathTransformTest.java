@@ -23,12 +23,17 @@ import static com.hp.hpl.jena.graph.Triple.create;
 import static java.util.stream.Stream.of;
 import static org.fcrepo.transform.transformations.LDPathTransform.CONFIGURATION_FOLDER;
 import static org.fcrepo.transform.transformations.LDPathTransform.getResourceTransform;
+import static org.fcrepo.transform.transformations.LDPathTransform.parseProgram;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 import static org.fcrepo.kernel.api.RdfLexicon.REPOSITORY_NAMESPACE;
+import static org.fcrepo.kernel.api.utils.ContentDigest.asURI;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
@@ -48,12 +53,14 @@ import javax.jcr.Workspace;
 import javax.jcr.nodetype.NodeType;
 import javax.ws.rs.core.UriBuilder;
 
+import org.apache.marmotta.ldpath.exception.LDPathParseException;
 import org.fcrepo.kernel.api.RdfStream;
 import org.fcrepo.kernel.api.models.FedoraBinary;
 import org.fcrepo.kernel.api.models.FedoraResource;
 import org.fcrepo.kernel.api.rdf.DefaultRdfStream;
 import org.fcrepo.kernel.api.services.NodeService;
 import org.fcrepo.kernel.modeshape.FedoraResourceImpl;
+import org.fcrepo.transform.LDPathBudgetExceededException;
 import org.fcrepo.transform.TransformNotFoundException;
 
 import org.junit.Before;
@@ -141,17 +148,27 @@ public class LDPathTransformTest {
         final FedoraBinary mockChildConfig = mock(FedoraBinary.class);
         when(mockChildConfig.getPath())
                 .thenReturn(CONFIGURATION_FOLDER + "some-program/" + customNsPrefix + ":type");
-        when(mockConfigNode.getChildren()).thenReturn(Stream.of(mockChildConfig));
+        when(mockConfigNode.getChildren()).thenAnswer(invocation -> Stream.of(mockChildConfig));
 
         final URI mockRdfType = UriBuilder.fromUri(customNsUri + "type").build();
         when(mockResource.getTypes()).thenReturn(Arrays.asList(mockRdfType));
 
-        when(mockChildConfig.getContent()).thenReturn(mockInputStream);
+        when(mockChildConfig.getContentDigest()).thenReturn(asURI("SHA-1", "node-type-program"));
+        when(mockChildConfig.getContent())
+                .thenReturn(new ByteArrayInputStream("title = dc:title :: xsd:string ;".getBytes()));
 
         final LDPathTransform nodeTypeSpecificLdpathProgramStream =
                 getResourceTransform(mockResource, mockSession, mockNodeService, "some-program");
 
-        assertEquals(new LDPathTransform(mockInputStream), nodeTypeSpecificLdpathProgramStream);
+        final RdfStream rdfStream = new DefaultRdfStream(createURI("abc"), of(
+                create(createURI("abc"),
+                        createURI("http://purl.org/dc/elements/1.1/title"),
+                        createLiteral("some-title"))));
+        assertTrue(nodeTypeSpecificLdpathProgramStream.apply(rdfStream).get(0).get("title").contains("some-title"));
+
+        assertEquals("Program should have been compiled only once", nodeTypeSpecificLdpathProgramStream,
+                getResourceTransform(mockResource, mockSession, mockNodeService, "some-program"));
+        verify(mockChildConfig, times(1)).getContent();
     }
 
     @Test
@@ -172,4 +189,76 @@ public class LDPathTransformTest {
         assertEquals(1, stringCollectionMap.get("title").size());
         assertTrue(stringCollectionMap.get("title").contains("some-title"));
     }
+
+    @Test(expected = LDPathBudgetExceededException.class)
+    public void testTooManyValues() throws LDPathParseException {
+        final RdfStream rdfStream = new DefaultRdfStream(createURI("abc"), of(
+                create(createURI("abc"), createURI("http://purl.org/dc/elements/1.1/title"), createLiteral("one")),
+                create(createURI("abc"), createURI("http://purl.org/dc/elements/1.1/title"), createLiteral("two"))));
+
+        testObj = new LDPathTransform(parseProgram(
+                new ByteArrayInputStream("title = dc:title :: xsd:string ;".getBytes())), new LDPathBudget(0, 0, 1));
+        testObj.apply(rdfStream);
+    }
+
+    @Test(expected = LDPathBudgetExceededException.class)
+    public void testTooManyVisits() throws LDPathParseException {
+        // a cycle, walked by a recursive path
+        final RdfStream rdfStream = new DefaultRdfStream(createURI("a"), of(
+                create(createURI("a"), createURI("http://www.w3.org/2004/02/skos/core#broader"), createURI("b")),
+                create(createURI("b"), createURI("http://www.w3.org/2004/02/skos/core#broader"), createURI("a"))));
+
+        testObj = new LDPathTransform(parseProgram(new ByteArrayInputStream(
+                "broader = (skos:broader)+ :: xsd:anyURI ;".getBytes())), new LDPathBudget(0, 3, 0));
+        testObj.apply(rdfStream);
+    }
+
+    @Test
+    public void testBudgetOverrunBeforeWriting() throws LDPathParseException {
+        final RdfStream rdfStream = new DefaultRdfStream(createURI("abc"), of(
+                create(createURI("abc"), createURI("http://purl.org/dc/elements/1.1/title"), createLiteral("one")),
+                create(createURI("abc"), createURI("http://purl.org/dc/elements/1.1/title"), createLiteral("two"))));
+
+        testObj = new LDPathTransform(parseProgram(new ByteArrayInputStream(
+                "title = dc:title :: xsd:string ;".getBytes())), new LDPathBudget(0, 0, 1));
+        final LDPathResult result = testObj.evaluate(rdfStream);
+        try {
+            result.evaluate();
+            fail("The budget should be overrun as the fields are evaluated");
+        } catch (final LDPathBudgetExceededException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testProgramIsEvaluatedWhole() throws LDPathParseException {
+        final RdfStream rdfStream = new DefaultRdfStream(createURI("abc"), of(
+                create(createURI("abc"), createURI("http://purl.org/dc/elements/1.1/title"), createLiteral("one")),
+                create(createURI("abc"), createURI("http://purl.org/dc/elements/1.1/subject"), createLiteral("a")),
+                create(createURI("abc"), createURI("http://purl.org/dc/elements/1.1/subject"), createLiteral("b"))));
+
+        testObj = new LDPathTransform(parseProgram(new ByteArrayInputStream(
+                "title = dc:title :: xsd:string ; subject = dc:subject :: xsd:string ;".getBytes())),
+                new LDPathBudget(0, 0, 1));
+        final LDPathResult result = testObj.evaluate(rdfStream);
+        try {
+            // the first field is within the budget, but the second is evaluated along with it
+            result.getValues(result.getProgram().getFields().iterator().next());
+            fail("The budget should be overrun before any field is given out");
+        } catch (final LDPathBudgetExceededException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testProgramBudget() {
+        System.setProperty(LDPathBudget.MAX_VALUES_PROPERTY + ".deluxe", "5");
+        try {
+            assertEquals(5, LDPathBudget.programBudget("deluxe").getMaxValues());
+            assertEquals(LDPathBudget.serverBudget().getMaxValues(), LDPathBudget.programBudget("default")
+                    .getMaxValues());
+        } finally {
+            System.clearProperty(LDPathBudget.MAX_VALUES_PROPERTY + ".deluxe");
+        }
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.jcr.NamespaceRegistry;
+import javax.jcr.RepositoryException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>NamespacePrefixIndexTest class.</p>
+ *
+ * @author agent
+ */
+public class NamespacePrefixIndexTest {
+
+    private NamespacePrefixIndex testObj;
+
+    @Before
+    public void setUp() {
+        final Map<String, String> namespaces = new HashMap<>();
+        namespaces.put("", "");
+        namespaces.put("http://example.org/", "ex");
+        namespaces.put("http://example.org/ns#", "exns");
+        namespaces.put("http://example.org/ns#sub/", "exsub");
+        namespaces.put("http://purl.org/dc/elements/1.1/", "dc");
+        testObj = new NamespacePrefixIndex(namespaces);
+    }
+
+    @Test
+    public void testCompact() {
+        assertEquals("dc:title", testObj.compact("http://purl.org/dc/elements/1.1/title"));
+    }
+
+    @Test
+    public void testLongestNamespaceWins() {
+        assertEquals("ex:other", testObj.compact("http://example.org/other"));
+        assertEquals("exns:Type", testObj.compact("http://example.org/ns#Type"));
+        assertEquals("exsub:Type", testObj.compact("http://example.org/ns#sub/Type"));
+    }
+
+    @Test
+    public void testNamespaceOnly() {
+        assertEquals("exns:", testObj.compact("http://example.org/ns#"));
+    }
+
+    @Test
+    public void testUnknownNamespace() {
+        assertNull(testObj.compact("http://example.com/Type"));
+        assertNull(testObj.compact("http://example.org"));
+        assertNull(testObj.compact(""));
+    }
+
+    @Test
+    public void testEmptyNamespaceIsIgnored() {
+        assertEquals(4, testObj.size());
+    }
+
+    @Test
+    public void testOfRegistry() throws RepositoryException {
+        final NamespaceRegistry mockRegistry = mock(NamespaceRegistry.class);
+        when(mockRegistry.getURIs()).thenReturn(new String[] { "http://example.org/ns#" });
+        when(mockRegistry.getPrefix("http://example.org/ns#")).thenReturn("exns");
+
+        assertEquals("exns:Type", NamespacePrefixIndex.of(mockRegistry).compact("http://example.org/ns#Type"));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static com.hp.hpl.jena.query.QueryExecutionFactory.create;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static org.fcrepo.transform.transformations.SparqlExecutionLimits.maxRowsOf;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.hp.hpl.jena.query.QueryExecution;
+
+/**
+ * <p>SparqlExecutionLimitsTest class.</p>
+ *
+ * @author agent
+ */
+public class SparqlExecutionLimitsTest {
+
+    @Test
+    public void testNarrow() {
+        final SparqlExecutionLimits limits = new SparqlExecutionLimits(1000, 0).narrow(5000L, 10L);
+        assertEquals(1000, limits.getTimeout());
+        assertEquals(10, limits.getMaxRows());
+
+        final SparqlExecutionLimits narrower = limits.narrow(500L, null);
+        assertEquals(500, narrower.getTimeout());
+        assertEquals(10, narrower.getMaxRows());
+    }
+
+    @Test
+    public void testNarrowIgnoresNonPositiveLimits() {
+        final SparqlExecutionLimits limits = new SparqlExecutionLimits(1000, 10).narrow(0L, -1L);
+        assertEquals(1000, limits.getTimeout());
+        assertEquals(10, limits.getMaxRows());
+    }
+
+    @Test
+    public void testApplyTo() {
+        try (final QueryExecution qexec = create("SELECT * WHERE { ?s ?p ?o }", createDefaultModel())) {
+            assertEquals(0, maxRowsOf(qexec));
+            new SparqlExecutionLimits(1000, 10).applyTo(qexec);
+            assertEquals(1000, qexec.getTimeout2());
+            assertEquals(10, maxRowsOf(qexec));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.hp.hpl.jena.rdf.model.ModelFactory.createDefaultModel;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createProperty;
+import static com.hp.hpl.jena.rdf.model.ResourceFactory.createResource;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fcrepo.metrics.RegistryService;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.Counter;
+import com.hp.hpl.jena.query.Query;
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.QueryExecutionFactory;
+import com.hp.hpl.jena.query.QueryParseException;
+import com.hp.hpl.jena.rdf.model.Model;
+
+/**
+ * <p>SparqlQueryCacheTest class.</p>
+ *
+ * @author agent
+ */
+public class SparqlQueryCacheTest {
+
+    private static final String QUERY = "SELECT ?title WHERE\n" +
+            "{\n" +
+            "  <http://example.org/book/book1> <http://purl.org/dc/elements/1.1/title> ?title .\n" +
+            "}";
+
+    private final Counter hits = RegistryService.getInstance().getMetrics()
+            .counter(name(SparqlQueryCache.class, "hits"));
+
+    private final Counter misses = RegistryService.getInstance().getMetrics()
+            .counter(name(SparqlQueryCache.class, "misses"));
+
+    private SparqlQueryCache testObj;
+
+    @Before
+    public void setUp() {
+        testObj = new SparqlQueryCache(2);
+    }
+
+    @Test
+    public void testQueryIsParsedOnce() {
+        final long hitCount = hits.getCount();
+        final long missCount = misses.getCount();
+
+        final Query query = testObj.getQuery(QUERY);
+        assertEquals(query, testObj.getQuery(QUERY));
+        assertEquals(hitCount + 1, hits.getCount());
+        assertEquals(missCount + 1, misses.getCount());
+        assertEquals("title", query.getResultVars().get(0));
+    }
+
+    @Test
+    public void testQueriesAreShared() {
+        assertSame(testObj.getQuery(QUERY), testObj.getQuery(QUERY));
+    }
+
+    @Test
+    public void testSharedQueriesAreNotModifiedByExecutions() {
+        final Model model = createDefaultModel();
+        model.add(createResource("http://example.org/book/book1"),
+                createProperty("http://purl.org/dc/elements/1.1/title"), "The Hobbit");
+        for (final String text : asList("CONSTRUCT { ?s ?p ?o } WHERE { ?s ?p ?o }",
+                "DESCRIBE <http://example.org/book/book1>")) {
+            final Query query = testObj.getQuery(text);
+            final String before = query.toString();
+            final List<String> resultVars = new ArrayList<>(query.getResultVars());
+            for (int i = 0; i < 2; i++) {
+                try (final QueryExecution qexec = QueryExecutionFactory.create(query, model)) {
+                    assertEquals(1, (query.isConstructType() ? qexec.execConstruct() : qexec.execDescribe()).size());
+                }
+            }
+            assertEquals(before, query.toString());
+            assertEquals(resultVars, query.getResultVars());
+        }
+    }
+
+    @Test
+    public void testQueryTextIsNormalized() {
+        assertEquals(testObj.getQuery(QUERY), testObj.getQuery("\r\n" + QUERY.replace("\n", "\r\n") + "  "));
+        assertEquals(1, testObj.size());
+    }
+
+    @Test
+    public void testDifferentQueries() {
+        assertNotEquals(testObj.getQuery(QUERY), testObj.getQuery(QUERY.replace("?title", "?t")));
+        assertEquals(2, testObj.size());
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        testObj.getQuery(QUERY);
+        testObj.getQuery(QUERY.replace("?title", "?a"));
+        testObj.getQuery(QUERY.replace("?title", "?b"));
+        assertEquals(2, testObj.size());
+    }
+
+    @Test(expected = QueryParseException.class)
+    public void testUnparseableQuery() {
+        testObj.getQuery("SELECT WHERE");
+    }
+}
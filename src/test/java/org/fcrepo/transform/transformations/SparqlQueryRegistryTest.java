@@ -0,0 +1,108 @@
+/*
+ * Licensed to DuraSpace under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * DuraSpace licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fcrepo.transform.transformations;
+
+import static org.fcrepo.transform.transformations.SparqlQueryTransform.CONFIGURATION_FOLDER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.ByteArrayInputStream;
+
+import javax.jcr.Session;
+
+import org.fcrepo.kernel.api.models.Container;
+import org.fcrepo.kernel.api.models.FedoraBinary;
+import org.fcrepo.kernel.api.services.NodeService;
+import org.fcrepo.transform.TransformNotFoundException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import com.hp.hpl.jena.query.QueryExecution;
+import com.hp.hpl.jena.query.ResultSet;
+
+/**
+ * <p>SparqlQueryRegistryTest class.</p>
+ *
+ * @author agent
+ */
+public class SparqlQueryRegistryTest {
+
+    private static final String QUERY = "SELECT ?title WHERE\n" +
+            "{\n" +
+            "  <http://example.org/book/book1> <http://purl.org/dc/elements/1.1/title> ?title .\n" +
+            "}";
+
+    @Mock
+    private Session mockSession;
+
+    @Mock
+    private NodeService mockNodeService;
+
+    @Mock
+    private FedoraBinary mockQuery;
+
+    private SparqlQueryRegistry testObj;
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+        testObj = new SparqlQueryRegistry();
+        when(mockNodeService.exists(mockSession, CONFIGURATION_FOLDER + "titles")).thenReturn(true);
+        when(mockNodeService.find(mockSession, CONFIGURATION_FOLDER + "titles")).thenReturn(mockQuery);
+        when(mockQuery.getContent()).thenAnswer(invocation -> new ByteArrayInputStream(QUERY.getBytes()));
+    }
+
+    @Test
+    public void testStoredQuery() {
+        final SparqlQueryTransform transform = testObj.getStoredTransform(mockSession, mockNodeService, "titles");
+        assertEquals(transform, testObj.getStoredTransform(mockSession, mockNodeService, "titles"));
+        verify(mockQuery, times(1)).getContent();
+
+        try (final QueryExecution qexec = transform.apply(SparqlQueryTransformTest.bookStream())) {
+            final ResultSet results = qexec.execSelect();
+            assertTrue(results.hasNext());
+            assertEquals("some-title", results.nextSolution().get("title").asLiteral().getValue());
+        }
+    }
+
+    @Test
+    public void testInvalidate() {
+        testObj.getStoredTransform(mockSession, mockNodeService, "titles");
+        testObj.invalidate("titles");
+        testObj.getStoredTransform(mockSession, mockNodeService, "titles");
+        verify(mockQuery, times(2)).getContent();
+    }
+
+    @Test(expected = TransformNotFoundException.class)
+    public void testMissingQuery() {
+        testObj.getStoredTransform(mockSession, mockNodeService, "missing");
+    }
+
+    @Test(expected = TransformNotFoundException.class)
+    public void testQueryIsNotABinary() {
+        when(mockNodeService.exists(mockSession, CONFIGURATION_FOLDER + "folder")).thenReturn(true);
+        when(mockNodeService.find(mockSession, CONFIGURATION_FOLDER + "folder")).thenReturn(mock(Container.class));
+        testObj.getStoredTransform(mockSession, mockNodeService, "folder");
+    }
+}
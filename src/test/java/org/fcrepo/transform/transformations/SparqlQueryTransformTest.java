@@ -71,10 +71,7 @@ public class SparqlQueryTransformTest {
 
     @Test
     public void testApply() {
-        final RdfStream model = new DefaultRdfStream(createURI("ttp://example.org/book/book1"), of(
-                    create(createResource("http://example.org/book/book1").asNode(),
-                        createProperty("http://purl.org/dc/elements/1.1/title").asNode(),
-                        createLiteral("some-title"))));
+        final RdfStream model = bookStream();
         final InputStream query = new ByteArrayInputStream(("SELECT ?title WHERE\n" +
                 "{\n" +
                 "  <http://example.org/book/book1> <http://purl.org/dc/elements/1.1/title> ?title .\n" +
@@ -89,6 +86,13 @@ public class SparqlQueryTransformTest {
         }
     }
 
+    static RdfStream bookStream() {
+        return new DefaultRdfStream(createURI("ttp://example.org/book/book1"), of(
+                    create(createResource("http://example.org/book/book1").asNode(),
+                        createProperty("http://purl.org/dc/elements/1.1/title").asNode(),
+                        createLiteral("some-title"))));
+    }
+
     @Test (expected = IllegalStateException.class)
     public void testApplyException() {
         final RdfStream model = mock(RdfStream.class);